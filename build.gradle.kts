@@ -21,6 +21,7 @@ dependencies {
     paperweight.paperDevBundle("${libs.versions.minecraft.get()}-R0.1-SNAPSHOT")
 
     compileOnly(libs.zstd)
+    compileOnly(libs.lz4)
 }
 
 tasks {
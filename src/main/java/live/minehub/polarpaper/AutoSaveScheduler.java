@@ -0,0 +1,218 @@
+package live.minehub.polarpaper;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.craftbukkit.CraftWorld;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Autosaves every polar world from a single task instead of one timer per world.
+ * Worlds are spread across their interval so worlds loaded together don't save together,
+ * a world is never saved again while its previous save is running, and only a limited number of
+ * worlds are saved at once. Worlds with nothing to save are skipped, and worlds with many dirty
+ * chunks are saved sooner so each save stays small.
+ * <p>
+ * Should only be used from the main thread
+ */
+public class AutoSaveScheduler {
+
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887;
+    private static final int MANY_DIRTY_CHUNKS = 256;
+
+    private static final Map<String, Entry> ENTRIES = new HashMap<>();
+    private static @Nullable BukkitTask tickTask = null;
+    private static long currentTick = 0;
+    private static int registrations = 0;
+    private static int runningSaves = 0;
+
+    private static volatile int maxConcurrentSaves = 2;
+
+    private AutoSaveScheduler() {
+
+    }
+
+    /**
+     * Reads the scheduler settings from the settings section of the config
+     */
+    public static void loadSettings(@NotNull FileConfiguration config) {
+        maxConcurrentSaves = Math.max(1, config.getInt("settings.maxConcurrentSaves", 2));
+    }
+
+    /**
+     * Schedules autosaving for a world, replacing its previous schedule
+     * Does nothing but remove the previous schedule if autosave is disabled in the config
+     */
+    static void schedule(@NotNull World world, @NotNull Config config) {
+        Entry prev = ENTRIES.remove(world.getName());
+
+        int interval = config.autoSaveIntervalTicks();
+        if (interval == -1) return;
+
+        Entry entry = new Entry(world, config, interval);
+        if (prev != null) {
+            entry.saving = prev.saving;
+            entry.saveFuture = prev.saveFuture;
+            entry.savedModifications = prev.savedModifications;
+        } else {
+            PolarWorld polarWorld = PolarWorld.fromWorld(world);
+            if (polarWorld != null) entry.savedModifications = polarWorld.modificationCount();
+        }
+
+        // Successive multiples of the golden ratio are spread evenly over the interval however many worlds there are
+        double fraction = (registrations++ * GOLDEN_RATIO_FRACTION) % 1.0;
+        entry.nextSaveTick = currentTick + interval + (long) (fraction * interval);
+
+        ENTRIES.put(world.getName(), entry);
+        startTickTask();
+    }
+
+    static void unschedule(@NotNull String worldName) {
+        ENTRIES.remove(worldName);
+    }
+
+    /**
+     * @return Whether an autosave of the world is running right now
+     */
+    public static boolean isSaving(@NotNull String worldName) {
+        Entry entry = ENTRIES.get(worldName);
+        return entry != null && entry.saving;
+    }
+
+    /**
+     * @return CompletableFuture that completes on the main thread once the running autosave of the world
+     * has finished, or a completed future if it isn't being autosaved
+     */
+    public static CompletableFuture<Void> awaitSave(@NotNull String worldName) {
+        Entry entry = ENTRIES.get(worldName);
+        if (entry == null || !entry.saving) return CompletableFuture.completedFuture(null);
+        return entry.saveFuture;
+    }
+
+    private static void startTickTask() {
+        if (tickTask != null) return;
+        tickTask = Bukkit.getScheduler().runTaskTimer(PolarPaper.getPlugin(), AutoSaveScheduler::tick, 1, 1);
+    }
+
+    private static void tick() {
+        currentTick++;
+
+        Iterator<Entry> iterator = ENTRIES.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.nextSaveTick > currentTick) continue;
+            if (entry.saving) continue;
+            if (runningSaves >= maxConcurrentSaves) return; // try again next tick
+
+            PolarWorld polarWorld = PolarWorld.fromWorld(entry.world);
+            if (polarWorld == null || Bukkit.getWorld(entry.world.getUID()) == null) { // unloaded without unscheduling
+                iterator.remove();
+                continue;
+            }
+
+            int dirtyChunks = dirtyChunks(entry.world);
+            boolean modified = polarWorld.modificationCount() != entry.savedModifications;
+            if (dirtyChunks == 0 && !modified) {
+                entry.nextSaveTick = currentTick + entry.interval;
+                continue;
+            }
+
+            entry.nextSaveTick = currentTick + (dirtyChunks >= MANY_DIRTY_CHUNKS ? Math.max(1, entry.interval / 2) : entry.interval);
+            save(entry, polarWorld);
+        }
+    }
+
+    private static void save(Entry entry, PolarWorld polarWorld) {
+        World world = entry.world;
+        entry.saving = true;
+        entry.saveFuture = new CompletableFuture<>();
+        runningSaves++;
+
+        Polar.updateConfig(world, world.getName()); // config should only be updated synchronously
+
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
+            long before = System.nanoTime();
+            String savingMsg = String.format("Autosaving '%s'...", world.getName());
+            PolarPaper.logger().info(savingMsg);
+            notify(savingMsg);
+
+            long modifications = entry.savedModifications;
+            try {
+                Polar.saveWorldToFile(world, entry.config.autosaveCompression());
+                modifications = polarWorld.modificationCount();
+
+                int ms = (int) ((System.nanoTime() - before) / 1_000_000);
+                String savedMsg = String.format("Saved '%s' in %sms", world.getName(), ms);
+                PolarPaper.logger().info(savedMsg);
+                notify(savedMsg);
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to autosave '" + world.getName() + "'");
+                ExceptionUtil.log(e);
+            }
+
+            long savedModifications = modifications;
+            Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> {
+                runningSaves--;
+                entry.saving = false;
+                entry.savedModifications = savedModifications;
+
+                // The world may have been rescheduled while it was saving
+                Entry current = ENTRIES.get(world.getName());
+                if (current != null) {
+                    current.saving = false;
+                    current.savedModifications = savedModifications;
+                }
+                entry.saveFuture.complete(null);
+            });
+        });
+    }
+
+    private static void notify(String message) {
+        for (Player plr : Bukkit.getOnlinePlayers()) {
+            if (!plr.hasPermission("polar.notifications")) continue;
+            plr.sendMessage(Component.text(message, NamedTextColor.AQUA));
+        }
+    }
+
+    // Changes to chunks that were unloaded since the last save are counted by the polar world's modification count instead
+    private static int dirtyChunks(World world) {
+        int dirty = 0;
+        for (NewChunkHolder chunkHolder : ((ChunkSystemServerLevel) ((CraftWorld) world).getHandle()).moonrise$getChunkTaskScheduler().chunkHolderManager.getChunkHolders()) {
+            ChunkAccess chunk = chunkHolder.getCurrentChunk();
+            if (chunk == null) continue;
+            if (chunk.isUnsaved()) dirty++;
+        }
+        return dirty;
+    }
+
+    private static final class Entry {
+        private final World world;
+        private final Config config;
+        private final int interval;
+        private long nextSaveTick;
+        private boolean saving = false;
+        private CompletableFuture<Void> saveFuture = CompletableFuture.completedFuture(null);
+        private long savedModifications = -1;
+
+        private Entry(World world, Config config, int interval) {
+            this.world = world;
+            this.config = config;
+            this.interval = interval;
+        }
+    }
+
+}
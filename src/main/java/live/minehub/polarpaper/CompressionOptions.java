@@ -0,0 +1,39 @@
+package live.minehub.polarpaper;
+
+import com.github.luben.zstd.ZstdCompressCtx;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Settings used when compressing a polar world with zstd
+ *
+ * @param level The zstd compression level (1-22, negative levels are faster)
+ * @param workers Number of zstd worker threads, 0 to compress on the calling thread
+ * @param longMode Whether to enable long distance matching
+ */
+public record CompressionOptions(
+        int level,
+        int workers,
+        boolean longMode
+) {
+
+    public static final int DEFAULT_LEVEL = 3; // Zstd.defaultCompressionLevel()
+    public static final int MAX_LEVEL = 22; // Zstd.maxCompressionLevel()
+
+    // 128MB window, the largest window zstd decompresses without raising the window log limit
+    private static final int LONG_WINDOW_LOG = 27;
+
+    public static final CompressionOptions DEFAULT = new CompressionOptions(DEFAULT_LEVEL, 0, false);
+    // Autosaves happen often so they favour speed, the save on stop is the one kept around so it favours size
+    public static final CompressionOptions AUTOSAVE_DEFAULT = new CompressionOptions(1, 0, false);
+    public static final CompressionOptions STOP_DEFAULT = new CompressionOptions(MAX_LEVEL, 0, true);
+
+    public byte @NotNull [] compress(byte @NotNull [] bytes) {
+        try (ZstdCompressCtx ctx = new ZstdCompressCtx()) {
+            ctx.setLevel(level);
+            if (workers > 0) ctx.setWorkers(workers);
+            if (longMode) ctx.setLong(LONG_WINDOW_LOG);
+            return ctx.compress(bytes);
+        }
+    }
+
+}
@@ -21,7 +21,15 @@ public record Config(
         boolean async,
         @NotNull WorldType worldType,
         @NotNull World.Environment environment,
-        @NotNull Map<String, Object> gamerules
+        @NotNull Map<String, Object> gamerules,
+        @NotNull CompressionOptions autosaveCompression,
+        @NotNull CompressionOptions saveCompression,
+        @NotNull CompressionOptions stopCompression,
+        int chunkMemoryBudget,
+        int spawnPreloadRadius,
+        int loadPriority,
+        int idleUnloadMinutes,
+        boolean preloadAllChunks
 ) {
 
     public static final Map<String, Object> DEFAULT_GAMERULES = new HashMap<>() {{
@@ -54,7 +62,15 @@ public record Config(
             false,
             WorldType.NORMAL,
             World.Environment.NORMAL,
-            DEFAULT_GAMERULES
+            DEFAULT_GAMERULES,
+            CompressionOptions.AUTOSAVE_DEFAULT,
+            CompressionOptions.DEFAULT,
+            CompressionOptions.STOP_DEFAULT,
+            -1,
+            -1,
+            0,
+            -1,
+            false
     );
 
     public static boolean isInConfig(@NotNull String worldName) {
@@ -91,6 +107,14 @@ public record Config(
         return configBuilder.build();
     }
 
+    /**
+     * @return The chunk memory budget in bytes, or -1 if disabled
+     */
+    public long chunkMemoryBudgetBytes() {
+        if (chunkMemoryBudget < 0) return -1;
+        return chunkMemoryBudget * 1024L * 1024L;
+    }
+
     public @NotNull String spawnString() {
         return locationToString(spawn());
     }
@@ -129,6 +153,15 @@ public record Config(
             gamerulesMap.putAll(defaultConfig.gamerules());
             gamerulesMap.putAll(convertedGamerules);
 
+            CompressionOptions autosaveCompression = readCompression(config, prefix + "compression.autosave.", defaultConfig.autosaveCompression);
+            CompressionOptions saveCompression = readCompression(config, prefix + "compression.save.", defaultConfig.saveCompression);
+            CompressionOptions stopCompression = readCompression(config, prefix + "compression.stop.", defaultConfig.stopCompression);
+            int chunkMemoryBudget = config.getInt(prefix + "chunkMemoryBudget", defaultConfig.chunkMemoryBudget);
+            int spawnPreloadRadius = config.getInt(prefix + "spawnPreloadRadius", defaultConfig.spawnPreloadRadius);
+            int loadPriority = config.getInt(prefix + "loadPriority", defaultConfig.loadPriority);
+            int idleUnloadMinutes = config.getInt(prefix + "idleUnloadMinutes", defaultConfig.idleUnloadMinutes);
+            boolean preloadAllChunks = config.getBoolean(prefix + "preloadAllChunks", defaultConfig.preloadAllChunks);
+
             return new Config(
                     autoSaveIntervalTicks,
                     time,
@@ -141,7 +174,15 @@ public record Config(
                     async,
                     worldType,
                     environment,
-                    gamerulesMap
+                    gamerulesMap,
+                    autosaveCompression,
+                    saveCompression,
+                    stopCompression,
+                    chunkMemoryBudget,
+                    spawnPreloadRadius,
+                    loadPriority,
+                    idleUnloadMinutes,
+                    preloadAllChunks
             );
         } catch (IllegalArgumentException e) {
             PolarPaper.logger().warning("Failed to read config, using defaults");
@@ -150,6 +191,19 @@ public record Config(
         }
     }
 
+    private static @NotNull CompressionOptions readCompression(FileConfiguration config, String prefix, CompressionOptions defaultOptions) {
+        int level = config.getInt(prefix + "level", defaultOptions.level());
+        int workers = config.getInt(prefix + "workers", defaultOptions.workers());
+        boolean longMode = config.getBoolean(prefix + "long", defaultOptions.longMode());
+        return new CompressionOptions(level, workers, longMode);
+    }
+
+    private static void writeCompression(FileConfiguration fileConfig, String prefix, CompressionOptions options, CompressionOptions defaultOptions) {
+        writeProperty(fileConfig, prefix + "level", options.level(), defaultOptions.level());
+        writeProperty(fileConfig, prefix + "workers", options.workers(), defaultOptions.workers());
+        writeProperty(fileConfig, prefix + "long", options.longMode(), defaultOptions.longMode());
+    }
+
     private static void writeProperty(FileConfiguration fileConfig, String path, Object value, Object def) {
         if (value.equals(def)) fileConfig.set(path, null);
         else fileConfig.set(path, value);
@@ -184,6 +238,20 @@ public record Config(
 
         fileConfig.setInlineComments(prefix + "gamerules", List.of("Custom rules: liquidPhysics, blockPhysics, blockGravity, coralDeath"));
 
+        writeCompression(fileConfig, prefix + "compression.autosave.", config.autosaveCompression, defaultConfig.autosaveCompression);
+        writeCompression(fileConfig, prefix + "compression.save.", config.saveCompression, defaultConfig.saveCompression);
+        writeCompression(fileConfig, prefix + "compression.stop.", config.stopCompression, defaultConfig.stopCompression);
+        writeProperty(fileConfig, prefix + "chunkMemoryBudget", config.chunkMemoryBudget, defaultConfig.chunkMemoryBudget);
+        fileConfig.setInlineComments(prefix + "chunkMemoryBudget", List.of("Megabytes of decoded chunks to keep in memory, -1 to disable"));
+        writeProperty(fileConfig, prefix + "spawnPreloadRadius", config.spawnPreloadRadius, defaultConfig.spawnPreloadRadius);
+        fileConfig.setInlineComments(prefix + "spawnPreloadRadius", List.of("Chunks around spawn to load over multiple ticks after init, -1 to use the spawnChunkRadius gamerule"));
+        writeProperty(fileConfig, prefix + "loadPriority", config.loadPriority, defaultConfig.loadPriority);
+        fileConfig.setInlineComments(prefix + "loadPriority", List.of("Startup load order, higher loads first, below 0 loads on first access"));
+        writeProperty(fileConfig, prefix + "idleUnloadMinutes", config.idleUnloadMinutes, defaultConfig.idleUnloadMinutes);
+        fileConfig.setInlineComments(prefix + "idleUnloadMinutes", List.of("Minutes without players before the world is saved and unloaded, -1 to disable"));
+        writeProperty(fileConfig, prefix + "preloadAllChunks", config.preloadAllChunks, defaultConfig.preloadAllChunks);
+        fileConfig.setInlineComments(prefix + "preloadAllChunks", List.of("Load and keep every chunk of the world loaded, the world is ready once they are all loaded"));
+
         Path pluginFolder = Path.of(PolarPaper.getPlugin().getDataFolder().getAbsolutePath());
         Path configFile = pluginFolder.resolve("config.yml");
         try {
@@ -266,6 +334,14 @@ public record Config(
         private @NotNull WorldType worldType;
         private @NotNull World.Environment environment;
         private @NotNull Map<String, Object> gamerules;
+        private @NotNull CompressionOptions autosaveCompression;
+        private @NotNull CompressionOptions saveCompression;
+        private @NotNull CompressionOptions stopCompression;
+        private int chunkMemoryBudget;
+        private int spawnPreloadRadius;
+        private int loadPriority;
+        private int idleUnloadMinutes;
+        private boolean preloadAllChunks;
 
         private Builder(Config record) {
             this.autoSaveIntervalTicks = record.autoSaveIntervalTicks;
@@ -280,6 +356,14 @@ public record Config(
             this.worldType = record.worldType;
             this.environment = record.environment;
             this.gamerules = record.gamerules;
+            this.autosaveCompression = record.autosaveCompression;
+            this.saveCompression = record.saveCompression;
+            this.stopCompression = record.stopCompression;
+            this.chunkMemoryBudget = record.chunkMemoryBudget;
+            this.spawnPreloadRadius = record.spawnPreloadRadius;
+            this.loadPriority = record.loadPriority;
+            this.idleUnloadMinutes = record.idleUnloadMinutes;
+            this.preloadAllChunks = record.preloadAllChunks;
         }
 
         public Builder autoSaveIntervalTicks(int autoSaveIntervalTicks) {
@@ -347,10 +431,51 @@ public record Config(
             return this;
         }
 
+        public Builder autosaveCompression(@NotNull CompressionOptions autosaveCompression) {
+            this.autosaveCompression = Objects.requireNonNull(autosaveCompression, "Null autosaveCompression");
+            return this;
+        }
+
+        public Builder saveCompression(@NotNull CompressionOptions saveCompression) {
+            this.saveCompression = Objects.requireNonNull(saveCompression, "Null saveCompression");
+            return this;
+        }
+
+        public Builder stopCompression(@NotNull CompressionOptions stopCompression) {
+            this.stopCompression = Objects.requireNonNull(stopCompression, "Null stopCompression");
+            return this;
+        }
+
+        public Builder chunkMemoryBudget(int chunkMemoryBudget) {
+            this.chunkMemoryBudget = chunkMemoryBudget;
+            return this;
+        }
+
+        public Builder spawnPreloadRadius(int spawnPreloadRadius) {
+            this.spawnPreloadRadius = spawnPreloadRadius;
+            return this;
+        }
+
+        public Builder loadPriority(int loadPriority) {
+            this.loadPriority = loadPriority;
+            return this;
+        }
+
+        public Builder idleUnloadMinutes(int idleUnloadMinutes) {
+            this.idleUnloadMinutes = idleUnloadMinutes;
+            return this;
+        }
+
+        public Builder preloadAllChunks(boolean preloadAllChunks) {
+            this.preloadAllChunks = preloadAllChunks;
+            return this;
+        }
+
         public Config build() {
             return new Config(this.autoSaveIntervalTicks, this.time, this.saveOnStop, this.loadOnStartup,
                     this.spawn, this.difficulty, this.allowMonsters, this.allowAnimals, this.async, this.worldType,
-                    this.environment, this.gamerules);
+                    this.environment, this.gamerules, this.autosaveCompression, this.saveCompression,
+                    this.stopCompression, this.chunkMemoryBudget, this.spawnPreloadRadius, this.loadPriority, this.idleUnloadMinutes, this.preloadAllChunks);
         }
     }
 }
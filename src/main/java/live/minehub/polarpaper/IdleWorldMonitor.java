@@ -0,0 +1,78 @@
+package live.minehub.polarpaper;
+
+import live.minehub.polarpaper.source.FilePolarSource;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saves and unloads polar worlds that have had no players for their configured idle time.
+ * Worlds with a file in the worlds folder are registered as lazy worlds afterwards, so the next access loads them again.
+ */
+class IdleWorldMonitor {
+
+    private static final int CHECK_INTERVAL_TICKS = 20;
+
+    private static final Map<String, Long> LAST_OCCUPIED = new HashMap<>();
+    private static final Set<String> UNLOADING = new HashSet<>();
+    private static @Nullable BukkitTask checkTask = null;
+
+    private IdleWorldMonitor() {
+
+    }
+
+    static void start() {
+        if (checkTask != null) return;
+        checkTask = Bukkit.getScheduler().runTaskTimer(PolarPaper.getPlugin(), IdleWorldMonitor::check, CHECK_INTERVAL_TICKS, CHECK_INTERVAL_TICKS);
+    }
+
+    private static void check() {
+        long now = System.currentTimeMillis();
+
+        Set<String> loadedWorlds = new HashSet<>();
+        for (World world : Bukkit.getWorlds()) {
+            String worldName = world.getName();
+            loadedWorlds.add(worldName);
+
+            PolarGenerator generator = PolarGenerator.fromWorld(world);
+            if (generator == null) continue;
+            Config config = generator.getConfig();
+            if (config.idleUnloadMinutes() < 0) continue;
+
+            // Pooled worlds are meant to sit empty until they are handed out
+            if (PolarWorldPool.isPooled(world)) continue;
+
+            if (!world.getPlayers().isEmpty() || !LAST_OCCUPIED.containsKey(worldName)) {
+                LAST_OCCUPIED.put(worldName, now);
+                continue;
+            }
+
+            long idleMillis = now - LAST_OCCUPIED.get(worldName);
+            if (idleMillis < config.idleUnloadMinutes() * 60_000L) continue;
+            if (!UNLOADING.add(worldName)) continue;
+
+            PolarPaper.logger().info(String.format("Unloading '%s' after %s minutes without players", worldName, config.idleUnloadMinutes()));
+
+            // Always saved, a world without autosave would otherwise lose every change made since it was loaded
+            Polar.unloadWorld(world, true).thenAccept(unloaded -> {
+                UNLOADING.remove(worldName);
+                LAST_OCCUPIED.remove(worldName);
+                if (!unloaded) return;
+
+                if (Files.exists(FilePolarSource.defaultFolder(worldName).path())) {
+                    Polar.registerLazyWorld(worldName);
+                }
+            });
+        }
+
+        LAST_OCCUPIED.keySet().retainAll(loadedWorlds);
+    }
+
+}
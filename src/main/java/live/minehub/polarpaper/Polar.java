@@ -1,15 +1,23 @@
 package live.minehub.polarpaper;
 
+import ca.spottedleaf.moonrise.patches.chunk_system.level.entity.ChunkEntitySlices;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.mojang.serialization.Dynamic;
 import com.mojang.serialization.Lifecycle;
 import io.papermc.paper.world.PaperWorldLoader;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import live.minehub.polarpaper.schematic.Schematic;
 import live.minehub.polarpaper.source.FilePolarSource;
 import live.minehub.polarpaper.source.PolarSource;
+import live.minehub.polarpaper.util.CoordConversion;
 import live.minehub.polarpaper.util.ExceptionUtil;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.core.Registry;
 import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.Registries;
@@ -19,11 +27,17 @@ import net.minecraft.server.Main;
 import net.minecraft.server.WorldLoader;
 import net.minecraft.server.dedicated.DedicatedServerProperties;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.util.GsonHelper;
 import net.minecraft.util.datafix.DataFixers;
 import net.minecraft.world.level.*;
 import net.minecraft.world.level.biome.BiomeManager;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
 import net.minecraft.world.level.dimension.LevelStem;
+import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraft.world.level.levelgen.WorldDimensions;
 import net.minecraft.world.level.levelgen.WorldOptions;
 import net.minecraft.world.level.storage.LevelDataAndDimensions;
@@ -33,28 +47,32 @@ import net.minecraft.world.level.validation.ContentValidationException;
 import org.bukkit.*;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.craftbukkit.CraftServer;
+import org.bukkit.craftbukkit.CraftWorld;
 import org.bukkit.craftbukkit.generator.CraftWorldInfo;
-import org.bukkit.entity.Player;
 import org.bukkit.generator.BiomeProvider;
 import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.generator.WorldInfo;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unused")
 public class Polar {
 
-    private static final Map<String, BukkitTask> AUTOSAVE_TASK_MAP = new HashMap<>();
+    private static final Map<String, PolarWorld> TEMPLATES = new ConcurrentHashMap<>();
+    private static final Set<String> LAZY_WORLDS = ConcurrentHashMap.newKeySet();
+    private static final Map<String, CompletableFuture<@Nullable World>> LAZY_LOADS = new ConcurrentHashMap<>();
 
     private Polar() {
 
@@ -97,6 +115,29 @@ public class Polar {
 
         CompletableFuture<@Nullable World> future = new CompletableFuture<>();
 
+        readWorld(source).thenAccept(polarWorld -> {
+            if (polarWorld == null) {
+                future.complete(null);
+                return;
+            }
+
+            WorldInitScheduler.submit(worldName, () -> {
+                createWorld(polarWorld, worldName, config, worldAccess).thenAccept(future::complete);
+            });
+        });
+
+        return future;
+    }
+
+    /**
+     * Reads and decodes a polar world asynchronously without creating a bukkit world
+     *
+     * @param source The source to read the polar world from
+     * @return CompletableFuture with the polar world, or null if it failed to read
+     */
+    public static CompletableFuture<@Nullable PolarWorld> readWorld(@NotNull PolarSource source) {
+        CompletableFuture<@Nullable PolarWorld> future = new CompletableFuture<>();
+
         Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
             try {
                 byte[] bytes = source.readBytes();
@@ -105,11 +146,11 @@ public class Polar {
                     PolarPaper.logger().info("Re-saving world to update legacy entities");
                     byte[] worldBytes = PolarWriter.write(polarWorld);
                     source.saveBytes(worldBytes);
+                    bytes = worldBytes;
                 }
-
-                Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> {
-                    createWorld(polarWorld, worldName, config, worldAccess).thenAccept(future::complete);
-                });
+                // The world is reset to what was read, not to whatever autosave writes to the source later
+                polarWorld.baseline(bytes);
+                future.complete(polarWorld);
             } catch (Exception e) {
                 ExceptionUtil.log(e);
                 future.complete(null);
@@ -119,6 +160,96 @@ public class Polar {
         return future;
     }
 
+    /**
+     * Saves a polar world asynchronously if needed, then unloads it and releases its chunk data
+     * If the world is being autosaved, it waits for that save to finish first
+     * Should be called from the main thread
+     *
+     * @param world The world to unload (must not contain any players)
+     * @param save Whether to save the world to the worlds folder before unloading
+     * @return CompletableFuture with whether the world was unloaded
+     */
+    public static CompletableFuture<Boolean> unloadWorld(@NotNull World world, boolean save) {
+        PolarWorld polarWorld = PolarWorld.fromWorld(world);
+        PolarGenerator generator = PolarGenerator.fromWorld(world);
+        if (polarWorld == null || generator == null) return CompletableFuture.completedFuture(false);
+        Config config = generator.getConfig();
+        String worldName = world.getName();
+
+        // Unloading or saving again while an autosave is still writing would race it
+        CompletableFuture<Void> runningSave = AutoSaveScheduler.awaitSave(worldName);
+        AutoSaveScheduler.unschedule(worldName);
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        Runnable unloadRunnable = () -> {
+            // Someone may have joined while it was saving
+            if (!world.getPlayers().isEmpty() || !Bukkit.unloadWorld(world, false)) {
+                AutoSaveScheduler.schedule(world, config);
+                future.complete(false);
+                return;
+            }
+
+            long released = polarWorld.release();
+            PolarPaper.logger().info(String.format("Unloaded '%s', released ~%sMB of chunk data", worldName, released / (1024 * 1024)));
+            future.complete(true);
+        };
+
+        if (!save) {
+            runningSave.thenRun(unloadRunnable);
+            return future;
+        }
+
+        runningSave.thenRun(() -> {
+            updateConfig(world, worldName); // config should only be updated synchronously
+            Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
+                saveWorldToFile(world, config.saveCompression());
+                Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), unloadRunnable);
+            });
+        });
+
+        return future;
+    }
+
+    /**
+     * Registers a world in the plugins/polarpaper/worlds folder to be loaded the first time it is accessed
+     * The file is not read until then
+     *
+     * @param worldName The name of the world
+     * @see #getOrLoadWorld(String)
+     */
+    public static void registerLazyWorld(@NotNull String worldName) {
+        LAZY_WORLDS.add(worldName);
+    }
+
+    public static boolean isLazyWorld(@NotNull String worldName) {
+        return LAZY_WORLDS.contains(worldName);
+    }
+
+    public static @NotNull Set<String> getLazyWorlds() {
+        return Set.copyOf(LAZY_WORLDS);
+    }
+
+    /**
+     * Gets a world, loading it first if it was registered to load lazily
+     * Concurrent calls for the same world share a single load
+     *
+     * @param worldName The name of the world
+     * @return CompletableFuture with the world, or null if it isn't loaded and isn't registered to load lazily
+     * @see #registerLazyWorld(String)
+     */
+    public static CompletableFuture<@Nullable World> getOrLoadWorld(@NotNull String worldName) {
+        World world = Bukkit.getWorld(worldName);
+        if (world != null) return CompletableFuture.completedFuture(world);
+        if (!LAZY_WORLDS.contains(worldName)) return CompletableFuture.completedFuture(null);
+
+        return LAZY_LOADS.computeIfAbsent(worldName, name -> {
+            PolarPaper.logger().info("Loading lazy polar world: " + name);
+            return loadWorldFromFile(name)
+                    .thenCompose(Polar::loadSpawnChunk)
+                    .whenComplete((loaded, throwable) -> LAZY_LOADS.remove(name));
+        });
+    }
+
     /**
      * Creates a polar world with config read from config.yml and with the default PolarWorldAccess
      *
@@ -175,6 +306,7 @@ public class Polar {
             return CompletableFuture.completedFuture(null);
         }
 
+        world.chunkMemoryBudget(config.chunkMemoryBudgetBytes());
         PolarGenerator polar = new PolarGenerator(world, worldAccess, config);
         PolarBiomeProvider polarBiomeProvider = new PolarBiomeProvider(world);
 
@@ -195,8 +327,14 @@ public class Polar {
                 return;
             }
 
-            startAutoSaveTask(newWorld, config);
-            future.complete(newWorld);
+            AutoSaveScheduler.schedule(newWorld, config);
+            if (config.preloadAllChunks()) {
+                WorldInitScheduler.preloadAllChunks(newWorld, world, config.spawn()).thenRun(() -> future.complete(newWorld));
+            } else {
+                // Spawn chunks are not loaded by prepareLevel, they are loaded across ticks here instead
+                WorldInitScheduler.preloadSpawn(newWorld, config.spawn(), spawnPreloadRadius(newWorld, config));
+                future.complete(newWorld);
+            }
         };
 
         if (config.async()) {
@@ -208,36 +346,117 @@ public class Polar {
         return future;
     }
 
-    private static void startAutoSaveTask(World world, Config config) {
-        BukkitTask prevTask = AUTOSAVE_TASK_MAP.get(world.getName());
-        if (prevTask != null) prevTask.cancel();
+    /**
+     * Registers a polar world as a template that many worlds can be created from
+     * The template is shared between worlds so it should not be modified after registering
+     *
+     * @param templateName The name to register the template as
+     * @param world The polar world to use as the template
+     * @see #createWorldFromTemplate(String, String)
+     */
+    public static void registerTemplate(@NotNull String templateName, @NotNull PolarWorld world) {
+        TEMPLATES.put(templateName, world);
+    }
 
-        if (config.autoSaveIntervalTicks() == -1) return;
+    /**
+     * Removes a template, worlds already created from it keep working
+     *
+     * @param templateName The name of the template
+     * @return The removed template or null if there was no template with that name
+     */
+    public static @Nullable PolarWorld unregisterTemplate(@NotNull String templateName) {
+        return TEMPLATES.remove(templateName);
+    }
 
-        BukkitTask autosaveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(PolarPaper.getPlugin(), () -> {
-            long before = System.nanoTime();
-            String savingMsg = String.format("Autosaving '%s'...", world.getName());
-            PolarPaper.logger().info(savingMsg);
-            for (Player plr : Bukkit.getOnlinePlayers()) {
-                if (!plr.hasPermission("polar.notifications")) continue;
-                plr.sendMessage(Component.text(savingMsg, NamedTextColor.AQUA));
-            }
+    public static @Nullable PolarWorld getTemplate(@NotNull String templateName) {
+        return TEMPLATES.get(templateName);
+    }
 
-            Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> {
-                updateConfig(world, world.getName()); // config should only be updated synchronously
-            });
-            saveWorldToFile(world);
-
-            int ms = (int) ((System.nanoTime() - before) / 1_000_000);
-            String savedMsg = String.format("Saved '%s' in %sms", world.getName(), ms);
-            PolarPaper.logger().info(savedMsg);
-            for (Player plr : Bukkit.getOnlinePlayers()) {
-                if (!plr.hasPermission("polar.notifications")) continue;
-                plr.sendMessage(Component.text(savedMsg, NamedTextColor.AQUA));
+    public static @NotNull Map<String, PolarWorld> getTemplates() {
+        return Map.copyOf(TEMPLATES);
+    }
+
+    /**
+     * Reads a polar world asynchronously and registers it as a template
+     *
+     * @param source The source to load the template from
+     * @param templateName The name to register the template as
+     * @return CompletableFuture with the template, or null if it failed to load
+     * @see FilePolarSource#defaultFolder(String)
+     */
+    public static CompletableFuture<@Nullable PolarWorld> loadTemplate(@NotNull PolarSource source, @NotNull String templateName) {
+        CompletableFuture<@Nullable PolarWorld> future = new CompletableFuture<>();
+
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
+            try {
+                PolarWorld polarWorld = PolarReader.read(source);
+                registerTemplate(templateName, polarWorld);
+                future.complete(polarWorld);
+            } catch (Exception e) {
+                ExceptionUtil.log(e);
+                future.complete(null);
             }
-        }, config.autoSaveIntervalTicks(), config.autoSaveIntervalTicks());
+        });
+
+        return future;
+    }
+
+    /**
+     * Creates a polar world from a registered template with config read from config.yml
+     *
+     * @param templateName The name of the template
+     * @param worldName The name for the polar world
+     * @return CompletableFuture with the created bukkit world (completes immediately if not async)
+     * @see #registerTemplate(String, PolarWorld)
+     */
+    public static CompletableFuture<@Nullable World> createWorldFromTemplate(@NotNull String templateName, @NotNull String worldName) {
+        FileConfiguration fileConfig = PolarPaper.getPlugin().getConfig();
+        Config config = Config.readFromConfig(fileConfig, worldName); // If world not in config, use defaults
+        return createWorldFromTemplate(templateName, worldName, config, PolarWorldAccess.POLAR_PAPER_FEATURES);
+    }
+
+    /**
+     * Creates a polar world from a registered template
+     * Chunks are shared with the template until they are changed, so each world only uses memory for its own changes
+     *
+     * @param templateName The name of the template
+     * @param worldName The name for the polar world
+     * @param config Custom config for the polar world
+     * @param worldAccess Describes how userdata should be handled (default PolarWorldAccess.POLAR_PAPER_FEATURES)
+     * @return CompletableFuture with the created bukkit world (completes immediately if not async)
+     * @see #registerTemplate(String, PolarWorld)
+     * @see PolarWorld#newInstance()
+     */
+    public static CompletableFuture<@Nullable World> createWorldFromTemplate(@NotNull String templateName, @NotNull String worldName, @NotNull Config config, @NotNull PolarWorldAccess worldAccess) {
+        PolarWorld template = TEMPLATES.get(templateName);
+        if (template == null) {
+            PolarPaper.logger().warning("No template with the name '" + templateName + "' is registered, skipping.");
+            return CompletableFuture.completedFuture(null);
+        }
 
-        AUTOSAVE_TASK_MAP.put(world.getName(), autosaveTask);
+        return createWorld(template.newInstance(), worldName, config, worldAccess);
+    }
+
+    // So players teleporting to a lazily loaded world don't wait on the spawn area after it is ready
+    private static CompletableFuture<@Nullable World> loadSpawnChunk(@Nullable World world) {
+        if (world == null) return CompletableFuture.completedFuture(null);
+        PolarGenerator generator = PolarGenerator.fromWorld(world);
+        if (generator == null) return CompletableFuture.completedFuture(world);
+
+        Config config = generator.getConfig();
+        return WorldInitScheduler.preloadSpawn(world, config.spawn(), spawnPreloadRadius(world, config))
+                .handle((v, throwable) -> world);
+    }
+
+    // -1 preloads the area the spawnChunkRadius gamerule keeps loaded, the spawn chunk alone if there is no such rule
+    private static int spawnPreloadRadius(@NotNull World world, @NotNull Config config) {
+        if (config.spawnPreloadRadius() >= 0) return config.spawnPreloadRadius();
+
+        CraftWorld craftWorld = (CraftWorld) world;
+        GameRules.Key<?> spawnChunkRadius = craftWorld.getGameRulesNMS().get("spawnChunkRadius");
+        if (spawnChunkRadius == null) return 0;
+        if (!(craftWorld.getHandle().getGameRules().getRule(spawnChunkRadius) instanceof GameRules.IntegerValue radius)) return 0;
+        return Math.max(0, radius.get());
     }
 
     @SuppressWarnings("unchecked")
@@ -281,6 +500,7 @@ public class Polar {
         Config config = Config.readFromConfig(PolarPaper.getPlugin().getConfig(), world);
 
         generator.setConfig(config);
+        polarWorld.chunkMemoryBudget(config.chunkMemoryBudgetBytes());
 
         world.setDifficulty(org.bukkit.Difficulty.valueOf(config.difficulty().name()));
         world.setSpawnFlags(config.allowMonsters(), config.allowAnimals());
@@ -291,13 +511,24 @@ public class Polar {
             setGameRule(world, rule, gamerule.getValue());
         }
 
-        Polar.startAutoSaveTask(world, config);
+        AutoSaveScheduler.schedule(world, config);
     }
 
     public static void saveWorldToFile(World world) {
         saveWorld(world, FilePolarSource.defaultFolder(world.getName()));
     }
 
+    /**
+     * Updates and saves a polar world to the plugins/polarpaper/worlds folder
+     * Can be called asynchronously
+     *
+     * @param world The bukkit world (needs to be a polar world)
+     * @param compressionOptions The zstd settings to save with (e.g. Config#autosaveCompression())
+     */
+    public static void saveWorldToFile(World world, CompressionOptions compressionOptions) {
+        saveWorld(world, FilePolarSource.defaultFolder(world.getName()), compressionOptions);
+    }
+
     /**
      * Updates and saves a polar world using the given source
      * Can be called asynchronously
@@ -307,11 +538,25 @@ public class Polar {
      */
     @SuppressWarnings("unused")
     public static void saveWorld(World world, PolarSource polarSource) {
+        PolarGenerator generator = PolarGenerator.fromWorld(world);
+        if (generator == null) return;
+        saveWorld(world, polarSource, generator.getConfig().saveCompression());
+    }
+
+    /**
+     * Updates and saves a polar world using the given source
+     * Can be called asynchronously
+     *
+     * @param world The bukkit world (needs to be a polar world)
+     * @param polarSource The source to use to save the polar world (e.g. FilePolarSource)
+     * @param compressionOptions The zstd settings to save with
+     */
+    public static void saveWorld(World world, PolarSource polarSource, CompressionOptions compressionOptions) {
         PolarWorld polarWorld = PolarWorld.fromWorld(world);
         if (polarWorld == null) return;
         PolarGenerator generator = PolarGenerator.fromWorld(world);
         if (generator == null) return;
-        saveWorld(world, polarWorld, polarSource, generator.getWorldAccess(), BlockSelector.ALL);
+        saveWorld(world, polarWorld, polarSource, generator.getWorldAccess(), BlockSelector.ALL, compressionOptions);
     }
 
     /**
@@ -327,9 +572,122 @@ public class Polar {
      * @see BlockSelector#ALL
      */
     public static void saveWorld(World world, PolarWorld polarWorld, PolarSource polarSource, PolarWorldAccess polarWorldAccess, BlockSelector blockSelector) {
+        saveWorld(world, polarWorld, polarSource, polarWorldAccess, blockSelector, CompressionOptions.DEFAULT);
+    }
+
+    /**
+     * Updates and saves a polar world using the given source
+     * Can be called asynchronously
+     *
+     * @param world The bukkit world to retrieve new chunks from
+     * @param polarWorld The polar world
+     * @param polarSource The source to use to save the polar world (e.g. FilePolarSource)
+     * @param polarWorldAccess Describes how userdata should be handled (default PolarWorldAccess.POLAR_PAPER_FEATURES)
+     * @param blockSelector Used to filter which blocks should be updated (essentially a crop)
+     * @param compressionOptions The zstd settings to save with
+     * @see PolarWorldAccess#POLAR_PAPER_FEATURES
+     * @see BlockSelector#ALL
+     */
+    public static void saveWorld(World world, PolarWorld polarWorld, PolarSource polarSource, PolarWorldAccess polarWorldAccess, BlockSelector blockSelector, CompressionOptions compressionOptions) {
         polarWorld.updateChunks(world, polarWorldAccess, blockSelector);
-        byte[] worldBytes = PolarWriter.write(polarWorld);
+        long modificationCount = polarWorld.modificationCount();
+        byte[] worldBytes = PolarWriter.write(polarWorld, compressionOptions);
         polarSource.saveBytes(worldBytes);
+        if (blockSelector == BlockSelector.ALL) polarWorld.markSaved(modificationCount);
+    }
+
+    /**
+     * Resets a loaded polar world back to its template, or to the data it was loaded with, without unloading it
+     * Blocks are only restored in chunks changed since the world was created or loaded,
+     * while non-player entities are cleared from every loaded chunk and respawned from the polar data.
+     * Must be called on the main thread
+     *
+     * @param world The bukkit world (needs to be a polar world created from a template or read from a source)
+     * @return The number of chunks that were restored
+     * @see PolarWorld#newInstance()
+     */
+    public static int resetWorld(@NotNull World world) {
+        PolarWorld polarWorld = PolarWorld.fromWorld(world);
+        if (polarWorld == null) return 0;
+        PolarGenerator generator = PolarGenerator.fromWorld(world);
+        if (generator == null) return 0;
+        if (!polarWorld.canReset()) {
+            PolarPaper.logger().warning("Cannot reset '" + world.getName() + "', it has no template or loaded data to reset to");
+            return 0;
+        }
+
+        ServerLevel serverLevel = ((CraftWorld) world).getHandle();
+        ChunkHolderManager chunkHolderManager = serverLevel.moonrise$getChunkTaskScheduler().chunkHolderManager;
+
+        LongSet changedChunks = polarWorld.reset();
+
+        PolarWorldAccess worldAccess = generator.getWorldAccess();
+        // Every block of a reset chunk is rewritten, so reset chunks are resent whole
+        long[] wholeSection = new long[16 * 16 * 16 / 64];
+        Arrays.fill(wholeSection, -1L);
+        Long2ObjectMap<long[]> writtenBlocks = new Long2ObjectOpenHashMap<>();
+        int resetChunks = 0;
+        for (NewChunkHolder chunkHolder : chunkHolderManager.getChunkHolders()) {
+            if (!(chunkHolder.getCurrentChunk() instanceof LevelChunk levelChunk)) continue;
+
+            // Entities wander and get spawned or killed in chunks whose blocks never change,
+            // so every loaded chunk is cleared and gets its original entities back
+            ChunkEntitySlices entityChunk = chunkHolder.getEntityChunk();
+            if (entityChunk != null) {
+                for (net.minecraft.world.entity.Entity entity : new ArrayList<>(entityChunk.getAllEntities())) {
+                    if (entity instanceof ServerPlayer) continue;
+                    entity.getBukkitEntity().remove();
+                }
+            }
+
+            long chunkIndex = CoordConversion.chunkIndex(levelChunk.locX, levelChunk.locZ);
+            boolean reset = changedChunks.contains(chunkIndex) || levelChunk.isUnsaved();
+            PolarChunk polarChunk = polarWorld.chunkAt(levelChunk.locX, levelChunk.locZ);
+
+            if (reset) {
+                resetChunk(levelChunk, polarChunk);
+                resetChunks++;
+
+                for (int i = 0; i < levelChunk.getSectionsCount(); i++) {
+                    writtenBlocks.put(SectionPos.asLong(levelChunk.locX, levelChunk.getMinSectionY() + i, levelChunk.locZ), wholeSection);
+                }
+            }
+
+            // Entities and chunk data are restored the same way as when the chunk was first populated
+            if (polarChunk != null && polarChunk.userData().length > 0) {
+                worldAccess.populateChunkData(levelChunk.getBukkitChunk(), polarChunk.userData());
+            }
+        }
+
+        // refresh blocks and light
+        Schematic.refreshSections(serverLevel, writtenBlocks);
+
+        return resetChunks;
+    }
+
+    private static void resetChunk(@NotNull LevelChunk levelChunk, @Nullable PolarChunk polarChunk) {
+        for (BlockPos blockPos : new ArrayList<>(levelChunk.getBlockEntities().keySet())) {
+            levelChunk.removeBlockEntity(blockPos);
+        }
+
+        LevelChunkSection[] sections = levelChunk.getSections();
+        for (int i = 0; i < sections.length; i++) {
+            PolarSection polarSection = polarChunk == null || i >= polarChunk.sections().length
+                    ? new PolarSection()
+                    : polarChunk.sections()[i];
+            PolarGenerator.loadSection(polarSection, sections[i], true);
+        }
+
+        if (polarChunk != null) {
+            for (PolarChunk.BlockEntity polarBlockEntity : polarChunk.blockEntities()) {
+                BlockEntity blockEntity = PolarGenerator.createBlockEntity(polarBlockEntity, levelChunk, levelChunk.locX, levelChunk.locZ);
+                if (blockEntity == null) continue;
+                levelChunk.setBlockEntity(blockEntity);
+            }
+        }
+
+        Heightmap.primeHeightmaps(levelChunk, ChunkStatus.FULL.heightmapsAfter());
+        levelChunk.tryMarkSaved();
     }
 
     @SuppressWarnings("UnstableApiUsage")
@@ -505,10 +863,25 @@ public class Polar {
             serverLevel.getChunkSource().setSpawnSettings(allowMonsters, allowAnimals);
             // Paper - Put world into worldlist before initing the world; move up
 
+            // Spawn chunks would be loaded all at once in prepareLevel, WorldInitScheduler#preloadSpawn loads them across ticks instead
+            GameRules.Key<?> spawnChunkRadius = serverLevel.getWorld().getGameRulesNMS().get("spawnChunkRadius");
+            GameRules.Value<?> spawnChunkRadiusRule = spawnChunkRadius == null ? null : serverLevel.getGameRules().getRule(spawnChunkRadius);
+            String configuredRadius = spawnChunkRadiusRule == null ? null : spawnChunkRadiusRule.serialize();
+            if (spawnChunkRadiusRule != null) {
+                spawnChunkRadiusRule.deserialize("0");
+                spawnChunkRadiusRule.onChanged(serverLevel);
+            }
+
             craftServer.getServer().prepareLevel(serverLevel);
+
+            // Put back the configured (or default) radius so the world keeps its spawn area and saves its real gamerule
+            if (spawnChunkRadiusRule != null) {
+                spawnChunkRadiusRule.deserialize(configuredRadius);
+                spawnChunkRadiusRule.onChanged(serverLevel);
+            }
         };
         if (async) {
-            Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), initRunnable);
+            WorldInitScheduler.submitStep(name, initRunnable);
         } else {
             initRunnable.run();
         }
@@ -28,6 +28,7 @@ import org.bukkit.craftbukkit.CraftWorld;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public record PolarChunk(
         int x,
@@ -113,6 +114,20 @@ public record PolarChunk(
 
 
     public static PolarChunk convert(NewChunkHolder chunkHolder, PolarWorldAccess worldAccess, BlockSelector blockSelector) {
+        return snapshot(chunkHolder, worldAccess, blockSelector, false).get();
+    }
+
+    /**
+     * Reads everything from a chunk that has to be read on the main thread, and returns the rest of the conversion.
+     * With copySections the returned supplier only reads captured data, so it can run on another thread
+     * even if the chunk is changed or unloaded in the meantime
+     *
+     * @param chunkHolder The holder of the chunk to convert
+     * @param blockSelector Used to filter which blocks are converted
+     * @param copySections Whether to copy the block and biome data instead of reading it when the supplier runs
+     * @return Supplier that finishes the conversion
+     */
+    public static Supplier<PolarChunk> snapshot(NewChunkHolder chunkHolder, PolarWorldAccess worldAccess, BlockSelector blockSelector, boolean copySections) {
         ChunkAccess chunkAccess = chunkHolder.getCurrentChunk();
         ChunkEntitySlices entityChunk = chunkHolder.getEntityChunk();
         int chunkX = chunkHolder.chunkX;
@@ -120,14 +135,68 @@ public record PolarChunk(
 
         List<PolarChunk.BlockEntity> polarBlockEntities = new ArrayList<>();
 
-        Registry<Biome> biomeRegistry = MinecraftServer.getServer().registryAccess().lookupOrThrow(Registries.BIOME);
-
         int sectionCount = chunkAccess.getSectionsCount();
         int minSection = chunkAccess.getMinSectionY();
 
-        PolarSection[] sections = new PolarSection[sectionCount];
+        LevelChunkSection[] chunkSections = new LevelChunkSection[sectionCount];
         for (int i = 0; i < sectionCount; i++) {
             LevelChunkSection chunkAccessSection = chunkAccess.getSection(i);
+            chunkSections[i] = copySections ? chunkAccessSection.copy() : chunkAccessSection;
+        }
+
+        var registryAccess = ((CraftServer) Bukkit.getServer()).getServer().registryAccess();
+        Set<Map.Entry<BlockPos, net.minecraft.world.level.block.entity.BlockEntity>> blockEntities = chunkAccess.blockEntities.entrySet();
+        for (Map.Entry<BlockPos, net.minecraft.world.level.block.entity.BlockEntity> entry : blockEntities) {
+            BlockPos blockPos = entry.getKey();
+            net.minecraft.world.level.block.entity.BlockEntity blockEntity = entry.getValue();
+
+            if (blockPos == null || blockEntity == null) continue;
+            if (!blockSelector.test(blockPos.getX(), blockPos.getY(), blockPos.getZ())) continue;
+
+            CompoundTag compoundTag = blockEntity.saveWithFullMetadata(registryAccess);
+
+            Optional<String> id = compoundTag.getString("id");
+            if (id.isEmpty()) {
+                PolarPaper.logger().warning("No ID in block entity data at: " + blockPos);
+                PolarPaper.logger().warning("Compound tag: " + compoundTag);
+                continue;
+            }
+
+            int index = CoordConversion.chunkBlockIndex(blockPos.getX(), blockPos.getY(), blockPos.getZ());
+            polarBlockEntities.add(new PolarChunk.BlockEntity(index, id.get(), compoundTag));
+        }
+
+        int[][] heightMaps = new int[PolarChunk.MAX_HEIGHTMAPS][0];
+        worldAccess.saveHeightmaps(chunkAccess, heightMaps);
+
+        ByteArrayDataOutput userDataOutput = ByteStreams.newDataOutput();
+        List<net.minecraft.world.entity.Entity> allEntities = entityChunk == null ? List.of() : entityChunk.getAllEntities();
+        allEntities.iterator().forEachRemaining(ent -> { // filter entities using the blockselector
+            if (!blockSelector.test(ent.getBlockX(), ent.getBlockY(), ent.getBlockZ())) allEntities.remove(ent);
+        });
+        org.bukkit.entity.Entity[] entitiesArray = new org.bukkit.entity.Entity[allEntities.size()];
+        for (int i = 0; i < allEntities.size(); i++) {
+            entitiesArray[i] = allEntities.get(i).getBukkitEntity();
+        }
+        worldAccess.saveChunkData(chunkAccess, blockEntities, entitiesArray, userDataOutput);
+        byte[] userData = userDataOutput.toByteArray();
+
+        return () -> new PolarChunk(
+                chunkX,
+                chunkZ,
+                convertSections(chunkSections, chunkX, chunkZ, minSection, blockSelector),
+                polarBlockEntities,
+                heightMaps,
+                userData
+        );
+    }
+
+    private static PolarSection[] convertSections(LevelChunkSection[] chunkSections, int chunkX, int chunkZ, int minSection, BlockSelector blockSelector) {
+        Registry<Biome> biomeRegistry = MinecraftServer.getServer().registryAccess().lookupOrThrow(Registries.BIOME);
+
+        PolarSection[] sections = new PolarSection[chunkSections.length];
+        for (int i = 0; i < chunkSections.length; i++) {
+            LevelChunkSection chunkAccessSection = chunkSections[i];
 
             int[] blockData = null;
             int[] biomeData;
@@ -200,51 +269,7 @@ public record PolarChunk(
             );
         }
 
-        var registryAccess = ((CraftServer) Bukkit.getServer()).getServer().registryAccess();
-        Set<Map.Entry<BlockPos, net.minecraft.world.level.block.entity.BlockEntity>> blockEntities = chunkAccess.blockEntities.entrySet();
-        for (Map.Entry<BlockPos, net.minecraft.world.level.block.entity.BlockEntity> entry : blockEntities) {
-            BlockPos blockPos = entry.getKey();
-            net.minecraft.world.level.block.entity.BlockEntity blockEntity = entry.getValue();
-
-            if (blockPos == null || blockEntity == null) continue;
-            if (!blockSelector.test(blockPos.getX(), blockPos.getY(), blockPos.getZ())) continue;
-
-            CompoundTag compoundTag = blockEntity.saveWithFullMetadata(registryAccess);
-
-            Optional<String> id = compoundTag.getString("id");
-            if (id.isEmpty()) {
-                PolarPaper.logger().warning("No ID in block entity data at: " + blockPos);
-                PolarPaper.logger().warning("Compound tag: " + compoundTag);
-                continue;
-            }
-
-            int index = CoordConversion.chunkBlockIndex(blockPos.getX(), blockPos.getY(), blockPos.getZ());
-            polarBlockEntities.add(new PolarChunk.BlockEntity(index, id.get(), compoundTag));
-        }
-
-        int[][] heightMaps = new int[PolarChunk.MAX_HEIGHTMAPS][0];
-        worldAccess.saveHeightmaps(chunkAccess, heightMaps);
-
-        ByteArrayDataOutput userDataOutput = ByteStreams.newDataOutput();
-        List<net.minecraft.world.entity.Entity> allEntities = entityChunk == null ? List.of() : entityChunk.getAllEntities();
-        allEntities.iterator().forEachRemaining(ent -> { // filter entities using the blockselector
-            if (!blockSelector.test(ent.getBlockX(), ent.getBlockY(), ent.getBlockZ())) allEntities.remove(ent);
-        });
-        org.bukkit.entity.Entity[] entitiesArray = new org.bukkit.entity.Entity[allEntities.size()];
-        for (int i = 0; i < allEntities.size(); i++) {
-            entitiesArray[i] = allEntities.get(i).getBukkitEntity();
-        }
-        worldAccess.saveChunkData(chunkAccess, blockEntities, entitiesArray, userDataOutput);
-        byte[] userData = userDataOutput.toByteArray();
-
-        return new PolarChunk(
-                chunkX,
-                chunkZ,
-                sections,
-                polarBlockEntities,
-                heightMaps,
-                userData
-        );
+        return sections;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,314 @@
+package live.minehub.polarpaper;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import live.minehub.polarpaper.userdata.EntityUtil;
+import live.minehub.polarpaper.util.CoordConversion;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static live.minehub.polarpaper.util.ByteArrayUtil.*;
+
+/**
+ * Crops a polar file down to the blocks of a {@link BlockSelector} without loading it as a world.
+ * Chunks failing {@link BlockSelector#testChunk(int, int)} are dropped and blocks of the remaining chunks that aren't
+ * selected are replaced with air, along with their block entities and entities.
+ * <p>
+ * Chunked zstd files keep their chunk frames and section dictionary, chunks completely inside the selection are copied
+ * over still compressed and only chunks on its edge are decoded and compressed again. If most chunks are dropped, or
+ * the dictionary is bigger than the chunks that are kept, the kept chunks are encoded again with a dictionary of their own.
+ * Other files are read and written as a whole.
+ */
+public class PolarCropper {
+
+    private static final String AIR = "minecraft:air";
+    private static final int SECTION_BLOCKS = 16 * 16 * 16;
+
+    private PolarCropper() {
+    }
+
+    public static byte @NotNull [] crop(byte @NotNull [] data, @NotNull BlockSelector selector) {
+        return crop(data, selector, null);
+    }
+
+    /**
+     * @param userData World user data of the cropped file, or null to keep the user data of the source
+     */
+    public static byte @NotNull [] crop(byte @NotNull [] data, @NotNull BlockSelector selector, byte @Nullable [] userData) {
+        return crop(data, selector, userData, PolarDataConverter.DEFAULT, CompressionOptions.DEFAULT);
+    }
+
+    /**
+     * @param data               The polar file to crop
+     * @param selector           The blocks to keep
+     * @param userData           World user data of the cropped file, or null to keep the user data of the source
+     * @param dataConverter      Converter used if the file has to be decoded
+     * @param compressionOptions Options for any data compressed again
+     * @return The cropped polar file, with the same compression as the source
+     */
+    public static byte @NotNull [] crop(byte @NotNull [] data, @NotNull BlockSelector selector, byte @Nullable [] userData,
+                                        @NotNull PolarDataConverter dataConverter, @NotNull CompressionOptions compressionOptions) {
+        ByteBuf bb = Unpooled.wrappedBuffer(data);
+
+        if (bb.readableBytes() > 6 && bb.readInt() == PolarWorld.MAGIC_NUMBER && bb.readShort() == PolarWorld.LATEST_VERSION) {
+            int dataVersion = getVarInt(bb);
+            PolarWorld.CompressionType compression = PolarWorld.CompressionType.fromId(bb.readByte());
+            // Frames can only be copied if they don't need converting
+            if (compression == PolarWorld.CompressionType.ZSTD_CHUNKED && dataVersion == dataConverter.dataVersion()) {
+                return cropChunked(bb, dataVersion, selector, userData, dataConverter, compressionOptions);
+            }
+        }
+
+        PolarWorld world = PolarReader.read(data, dataConverter);
+
+        List<PolarChunk> chunks = new ArrayList<>();
+        for (PolarChunk chunk : world.chunks()) {
+            if (!selector.testChunk(chunk.x(), chunk.z())) continue;
+            chunks.add(cropChunk(chunk, selector, world.minSection()));
+        }
+
+        PolarWorld cropped = new PolarWorld(
+                PolarWorld.LATEST_VERSION, dataConverter.dataVersion(), world.compression(),
+                world.minSection(), world.maxSection(),
+                userData == null ? world.userData() : userData,
+                chunks
+        );
+        return PolarWriter.write(cropped, dataConverter, compressionOptions);
+    }
+
+    private static byte @NotNull [] cropChunked(@NotNull ByteBuf bb, int dataVersion, @NotNull BlockSelector selector, byte @Nullable [] userData,
+                                                @NotNull PolarDataConverter dataConverter, @NotNull CompressionOptions compressionOptions) {
+        short version = PolarWorld.LATEST_VERSION;
+
+        byte[] chunkDictionary = getByteArray(bb);
+        int headerLength = getVarInt(bb);
+        ByteBuf header = Unpooled.wrappedBuffer(Zstd.decompress(getByteArray(bb), headerLength));
+
+        byte minSection = header.readByte();
+        byte maxSection = header.readByte();
+        byte[] worldUserData = getByteArray(header);
+        int sectionCount = maxSection - minSection + 1;
+
+        // Copy the section dictionary as it is so copied frames still point at the right sections,
+        // sections cropped out of edge chunks are added after it
+        PolarWriter.SectionDictionary sectionDictionary = new PolarWriter.SectionDictionary();
+        PolarSection[] sections = new PolarSection[getVarInt(header)];
+        for (int i = 0; i < sections.length; i++) {
+            int start = header.readerIndex();
+            sections[i] = PolarReader.readSection(dataConverter, version, dataVersion, header);
+            byte[] sectionBytes = new byte[header.readerIndex() - start];
+            header.getBytes(start, sectionBytes);
+            sectionDictionary.add(sections[i], sectionBytes);
+        }
+
+        byte[] newUserData = userData == null ? worldUserData : userData;
+
+        int chunkCount = getVarInt(bb);
+        List<PolarWriter.ChunkFrame> frames = new ArrayList<>(chunkCount);
+        // The decoded chunk of every kept frame that was cropped, null for frames copied as they are
+        List<@Nullable PolarChunk> croppedChunks = new ArrayList<>(chunkCount);
+        long keptRecordBytes = 0;
+        int level = compressionOptions.level();
+        try (ZstdDictDecompress dictDecompress = chunkDictionary.length == 0 ? null : new ZstdDictDecompress(chunkDictionary);
+             ZstdDictCompress dictCompress = chunkDictionary.length == 0 ? null : new ZstdDictCompress(chunkDictionary, level)) {
+            for (int i = 0; i < chunkCount; i++) {
+                int chunkX = getVarInt(bb);
+                int chunkZ = getVarInt(bb);
+                int length = getVarInt(bb);
+                byte[] frame = getByteArray(bb);
+
+                if (!selector.testChunk(chunkX, chunkZ)) continue;
+                if (containsChunk(selector, chunkX, chunkZ, minSection, maxSection)) {
+                    frames.add(new PolarWriter.ChunkFrame(chunkX, chunkZ, length, frame));
+                    croppedChunks.add(null);
+                    keptRecordBytes += length;
+                    continue;
+                }
+
+                byte[] record = dictDecompress == null
+                        ? Zstd.decompress(frame, length)
+                        : Zstd.decompress(frame, dictDecompress, length);
+                PolarChunk chunk = PolarReader.readChunk(dataConverter, version, dataVersion, Unpooled.wrappedBuffer(record), sectionCount, sections);
+                PolarChunk cropped = cropChunk(chunk, selector, minSection);
+                if (cropped == chunk) {
+                    // Nothing in this chunk was outside the selection
+                    frames.add(new PolarWriter.ChunkFrame(chunkX, chunkZ, length, frame));
+                    croppedChunks.add(null);
+                    keptRecordBytes += length;
+                    continue;
+                }
+
+                ByteArrayDataOutput chunkBB = ByteStreams.newDataOutput();
+                PolarWriter.writeChunk(chunkBB, cropped, sectionCount, sectionDictionary);
+                record = chunkBB.toByteArray();
+                frame = dictCompress == null ? Zstd.compress(record, level) : Zstd.compress(record, dictCompress);
+                frames.add(new PolarWriter.ChunkFrame(chunkX, chunkZ, record.length, frame));
+                croppedChunks.add(cropped);
+                keptRecordBytes += record.length;
+            }
+
+            // The copied dictionaries would mostly hold sections only the dropped chunks used
+            if (frames.size() * 2 < chunkCount || headerLength > keptRecordBytes) {
+                List<PolarChunk> chunks = new ArrayList<>(frames.size());
+                for (int i = 0; i < frames.size(); i++) {
+                    PolarChunk chunk = croppedChunks.get(i);
+                    if (chunk == null) {
+                        PolarWriter.ChunkFrame frame = frames.get(i);
+                        byte[] record = dictDecompress == null
+                                ? Zstd.decompress(frame.frame(), frame.length())
+                                : Zstd.decompress(frame.frame(), dictDecompress, frame.length());
+                        chunk = PolarReader.readChunk(dataConverter, version, dataVersion, Unpooled.wrappedBuffer(record), sectionCount, sections);
+                    }
+                    chunks.add(chunk);
+                }
+
+                PolarWorld compacted = new PolarWorld(version, dataVersion, PolarWorld.CompressionType.ZSTD_CHUNKED, minSection, maxSection, newUserData, chunks);
+                return PolarWriter.write(compacted, dataConverter, compressionOptions);
+            }
+        }
+
+        ByteArrayDataOutput headerBB = ByteStreams.newDataOutput();
+        headerBB.write(minSection);
+        headerBB.write(maxSection);
+        writeVarInt(newUserData.length, headerBB);
+        headerBB.write(newUserData);
+        sectionDictionary.write(headerBB);
+
+        ByteArrayDataOutput finalBB = ByteStreams.newDataOutput();
+        finalBB.writeInt(PolarWorld.MAGIC_NUMBER);
+        finalBB.writeShort(PolarWorld.LATEST_VERSION);
+        writeVarInt(dataVersion, finalBB);
+        finalBB.write(PolarWorld.CompressionType.ZSTD_CHUNKED.ordinal());
+        PolarWriter.writeFrames(finalBB, chunkDictionary, headerBB.toByteArray(), frames, compressionOptions);
+        return finalBB.toByteArray();
+    }
+
+    /**
+     * @return Whether every block of the chunk is known to be selected without testing them
+     */
+    private static boolean containsChunk(@NotNull BlockSelector selector, int chunkX, int chunkZ, int minSection, int maxSection) {
+        if (selector == BlockSelector.ALL) return true;
+        if (!(selector instanceof BlockSelector.RegionBlockSelector region)) return false;
+        return region.min().x <= chunkX * 16 && region.max().x >= chunkX * 16 + 15 &&
+                region.min().z <= chunkZ * 16 && region.max().z >= chunkZ * 16 + 15 &&
+                region.min().y <= minSection * 16 && region.max().y >= maxSection * 16 + 15;
+    }
+
+    /**
+     * @return The chunk with everything outside the selection removed, or the same chunk if nothing was
+     */
+    private static @NotNull PolarChunk cropChunk(@NotNull PolarChunk chunk, @NotNull BlockSelector selector, int minSection) {
+        boolean blocksChanged = false;
+
+        PolarSection[] sections = chunk.sections().clone();
+        for (int i = 0; i < sections.length; i++) {
+            PolarSection cropped = cropSection(sections[i], selector, chunk.x(), chunk.z(), minSection + i);
+            if (cropped == sections[i]) continue;
+            sections[i] = cropped;
+            blocksChanged = true;
+        }
+        boolean changed = blocksChanged;
+
+        List<PolarChunk.BlockEntity> blockEntities = new ArrayList<>(chunk.blockEntities().size());
+        for (PolarChunk.BlockEntity blockEntity : chunk.blockEntities()) {
+            int x = CoordConversion.chunkBlockIndexGetX(blockEntity.index()) + chunk.x() * 16;
+            int y = CoordConversion.chunkBlockIndexGetY(blockEntity.index());
+            int z = CoordConversion.chunkBlockIndexGetZ(blockEntity.index()) + chunk.z() * 16;
+            if (selector.test(x, y, z)) blockEntities.add(blockEntity);
+        }
+        if (blockEntities.size() != chunk.blockEntities().size()) changed = true;
+
+        byte[] userData = cropEntities(chunk.userData(), selector, chunk.x(), chunk.z());
+        if (userData != chunk.userData()) changed = true;
+
+        if (!changed) return chunk;
+        // Heightmaps of cropped blocks would be stale, without them they are worked out again when the chunk is loaded
+        int[][] heightmaps = blocksChanged ? new int[PolarChunk.MAX_HEIGHTMAPS][0] : chunk.heightmaps();
+        return new PolarChunk(chunk.x(), chunk.z(), sections, blockEntities, heightmaps, userData);
+    }
+
+    /**
+     * @return The section with every block outside the selection set to air, or the same section if they already were
+     */
+    private static @NotNull PolarSection cropSection(@NotNull PolarSection section, @NotNull BlockSelector selector,
+                                                     int chunkX, int chunkZ, int sectionY) {
+        if (section.isEmpty()) return section;
+
+        String[] blockPalette = section.blockPalette();
+        int[] blockData = blockPalette.length > 1 ? section.blockData() : null;
+        int airIndex = Arrays.asList(blockPalette).indexOf(AIR);
+
+        int[] croppedData = null;
+        int solidBlocks = 0;
+        for (int index = 0; index < SECTION_BLOCKS; index++) {
+            int paletteIndex = blockData == null ? 0 : blockData[index];
+            if (paletteIndex == airIndex) continue;
+            if (selector.test(index, chunkX, chunkZ, sectionY)) {
+                solidBlocks++;
+                continue;
+            }
+
+            if (croppedData == null) {
+                if (airIndex == -1) {
+                    blockPalette = Arrays.copyOf(blockPalette, blockPalette.length + 1);
+                    airIndex = blockPalette.length - 1;
+                    blockPalette[airIndex] = AIR;
+                }
+                croppedData = blockData == null ? new int[SECTION_BLOCKS] : blockData.clone();
+            }
+            croppedData[index] = airIndex;
+        }
+
+        if (croppedData == null) return section;
+
+        // Biomes and light are kept, the blocks' light is worked out again once it is pasted or loaded
+        return new PolarSection(
+                solidBlocks == 0 ? new String[]{AIR} : blockPalette,
+                solidBlocks == 0 ? null : croppedData,
+                section.biomePalette(), section.biomePalette().length > 1 ? section.biomeData() : null,
+                section.blockLightContent(), section.blockLightContent() == PolarSection.LightContent.PRESENT ? section.blockLight() : null,
+                section.skyLightContent(), section.skyLightContent() == PolarSection.LightContent.PRESENT ? section.skyLight() : null
+        );
+    }
+
+    /**
+     * Removes the entities outside the selection from chunk user data written by {@link PolarWorldAccess#POLAR_PAPER_FEATURES}
+     *
+     * @return The new user data, or the same user data if no entities were removed
+     */
+    private static byte @NotNull [] cropEntities(byte @NotNull [] userData, @NotNull BlockSelector selector, int chunkX, int chunkZ) {
+        if (userData.length == 0) return userData;
+
+        final var bb = ByteBuffer.wrap(userData);
+        byte version = bb.get();
+        List<PolarChunk.Entity> entities = EntityUtil.getEntities(bb);
+
+        // Entity x and z are relative to the chunk
+        List<PolarChunk.Entity> kept = new ArrayList<>(entities.size());
+        for (PolarChunk.Entity entity : entities) {
+            int x = (int) Math.floor(entity.x()) + chunkX * 16;
+            int y = (int) Math.floor(entity.y());
+            int z = (int) Math.floor(entity.z()) + chunkZ * 16;
+            if (selector.test(x, y, z)) kept.add(entity);
+        }
+        if (kept.size() == entities.size()) return userData;
+
+        ByteArrayDataOutput newData = ByteStreams.newDataOutput();
+        newData.writeByte(version);
+        EntityUtil.writeEntities(kept, newData);
+        // Anything after the entities, like the persistent data container, is copied as it is
+        newData.write(userData, bb.position(), bb.remaining());
+        return newData.toByteArray();
+    }
+
+}
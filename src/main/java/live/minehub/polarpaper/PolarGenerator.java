@@ -53,13 +53,17 @@ public class PolarGenerator extends ChunkGenerator {
         for (PolarSection section : chunk.sections()) {
             LevelChunkSection chunkAccessSection = chunkAccess.getSection(i++);
 
-            loadSection(section, chunkAccess, chunkAccessSection);
+            loadSection(section, chunkAccessSection, false);
         }
 
         // TODO: load light
 
-        for (PolarChunk.BlockEntity blockEntity : chunk.blockEntities()) {
-            loadBlockEntity(blockEntity, chunkAccess, chunkX, chunkZ);
+        for (PolarChunk.BlockEntity polarBlockEntity : chunk.blockEntities()) {
+            BlockEntity blockEntity = createBlockEntity(polarBlockEntity, chunkAccess, chunkX, chunkZ);
+            if (blockEntity == null) continue;
+
+            // chunkAccess.setBlockEntity(blockEntity);
+            chunkAccess.blockEntities.put(blockEntity.getBlockPos(), blockEntity);
         }
 
         this.worldAccess.loadHeightmaps(chunkData, chunk.heightmaps());
@@ -71,9 +75,9 @@ public class PolarGenerator extends ChunkGenerator {
 //        System.out.println("Generated surface in " + (System.nanoTime() - before) + "ns");
     }
 
-    private void loadBlockEntity(@NotNull PolarChunk.BlockEntity polarBlockEntity, @NotNull ChunkAccess chunkAccess, int chunkX, int chunkZ) {
+    static @Nullable BlockEntity createBlockEntity(@NotNull PolarChunk.BlockEntity polarBlockEntity, @NotNull ChunkAccess chunkAccess, int chunkX, int chunkZ) {
         CompoundTag compoundTag = polarBlockEntity.data();
-        if (compoundTag == null) return;
+        if (compoundTag == null) return null;
         if (polarBlockEntity.id() != null) compoundTag.putString("id", polarBlockEntity.id());
 
         int x = CoordConversion.chunkBlockIndexGetX(polarBlockEntity.index());
@@ -84,18 +88,33 @@ public class PolarGenerator extends ChunkGenerator {
         BlockPos blockPos = new BlockPos(chunkX * 16 + x, y, chunkZ * 16 + z);
 
         var registryAccess = ((CraftServer) Bukkit.getServer()).getServer().registryAccess();
-        BlockEntity blockEntity = BlockEntity.loadStatic(blockPos, blockState, compoundTag, registryAccess);
-        if (blockEntity == null) return;
-
-        // chunkAccess.setBlockEntity(blockEntity);
-        chunkAccess.blockEntities.put(blockPos, blockEntity);
+        return BlockEntity.loadStatic(blockPos, blockState, compoundTag, registryAccess);
     }
 
-    private void loadSection(@NotNull PolarSection section, @NotNull ChunkAccess chunkAccess, LevelChunkSection chunkAccessSection) {
+    /**
+     * Loads the blocks of a polar section into a chunk section
+     *
+     * @param replace Whether the chunk section may already contain blocks, otherwise air sections are skipped
+     */
+    static void loadSection(@NotNull PolarSection section, @NotNull LevelChunkSection chunkAccessSection, boolean replace) {
         // Blocks
         int[] blockData = section.blockData();
+        BlockState[] materialPalette = resolvePalette(section.blockPalette());
+
+        if (blockData == null && !replace) {
+            if (materialPalette.length == 1) {
+                BlockState first = materialPalette[0];
+                if (first.isAir()) return;
+            }
+        }
+
+        setSectionBlocks(chunkAccessSection, materialPalette, blockData);
+    }
 
-        String[] rawBlockPalette = section.blockPalette();
+    /**
+     * Parses a polar block palette, unknown block states are replaced with air
+     */
+    public static BlockState @NotNull [] resolvePalette(@NotNull String @NotNull [] rawBlockPalette) {
         BlockState[] materialPalette = new BlockState[rawBlockPalette.length];
         for (int i = 0; i < rawBlockPalette.length; i++) {
             try {
@@ -105,17 +124,19 @@ public class PolarGenerator extends ChunkGenerator {
                 materialPalette[i] = Blocks.AIR.defaultBlockState();
             }
         }
+        return materialPalette;
+    }
 
+    /**
+     * Replaces every block of a chunk section at once by swapping in a new block container
+     *
+     * @param materialPalette The block states of the section
+     * @param blockData The palette index of every block in yzx order, or null if the palette has a single entry
+     */
+    public static void setSectionBlocks(@NotNull LevelChunkSection chunkAccessSection, BlockState @NotNull [] materialPalette, int @Nullable [] blockData) {
         PalettedContainer<BlockState> states = chunkAccessSection.getStates();
 
-        var bitsPerEntry = (int) Math.ceil(Math.log(rawBlockPalette.length) / Math.log(2));
-
-        if (blockData == null) {
-            if (materialPalette.length == 1) {
-                BlockState first = materialPalette[0];
-                if (first.isAir()) return;
-            }
-        }
+        var bitsPerEntry = (int) Math.ceil(Math.log(materialPalette.length) / Math.log(2));
 
         if (blockData == null || bitsPerEntry == 0) {
             states.data = new PalettedContainer.Data<>(
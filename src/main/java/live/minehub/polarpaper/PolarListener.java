@@ -1,5 +1,8 @@
 package live.minehub.polarpaper;
 
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
 import io.papermc.paper.persistence.PersistentDataContainerView;
 import live.minehub.polarpaper.commands.WandCommand;
 import live.minehub.polarpaper.schematic.Schematic;
@@ -7,6 +10,7 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
 import org.bukkit.craftbukkit.CraftChunk;
+import org.bukkit.craftbukkit.CraftWorld;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -16,6 +20,7 @@ import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.world.ChunkPopulateEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
@@ -33,6 +38,7 @@ public class PolarListener implements Listener {
 
         PolarChunk chunk = polarWorld.chunkAt(event.getChunk().getX(), event.getChunk().getZ());
         if (chunk == null) return;
+        polarWorld.markGenerated(chunk.x(), chunk.z());
 
         ChunkGenerator generator = event.getWorld().getGenerator();
         if (!(generator instanceof PolarGenerator polarGenerator)) return;
@@ -48,6 +54,19 @@ public class PolarListener implements Listener {
         }
     }
 
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        PolarWorld polarWorld = PolarWorld.fromWorld(event.getWorld());
+        PolarGenerator generator = PolarGenerator.fromWorld(event.getWorld());
+        if (polarWorld == null || generator == null) return;
+
+        ChunkHolderManager chunkHolderManager = ((ChunkSystemServerLevel) ((CraftWorld) event.getWorld()).getHandle()).moonrise$getChunkTaskScheduler().chunkHolderManager;
+        NewChunkHolder chunkHolder = chunkHolderManager.getChunkHolder(event.getChunk().getX(), event.getChunk().getZ());
+        if (chunkHolder == null) return;
+
+        polarWorld.captureUnloadingChunk(chunkHolder, generator.getWorldAccess());
+    }
+
     @EventHandler
     public void onBlockFade(BlockFadeEvent event) { // coral death
         PolarGenerator generator = PolarGenerator.fromWorld(event.getBlock().getWorld());
@@ -4,6 +4,7 @@ import io.papermc.paper.command.brigadier.Commands;
 import io.papermc.paper.plugin.lifecycle.event.LifecycleEventManager;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
 import live.minehub.polarpaper.commands.PolarCommand;
+import live.minehub.polarpaper.schematic.SchematicCache;
 import live.minehub.polarpaper.util.ExceptionUtil;
 import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
@@ -14,7 +15,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
@@ -38,26 +41,28 @@ public final class PolarPaper extends JavaPlugin {
 
         saveDefaultConfig();
 
+        WorldInitScheduler.loadSettings(getConfig());
+        AutoSaveScheduler.loadSettings(getConfig());
+        SchematicCache.loadSettings(getConfig());
+
+        List<String> worldNames = new ArrayList<>();
         try (var files = Files.list(worldsFolder)) {
             files.forEach(path -> {
                 if (!path.getFileName().toString().endsWith(".polar")) {
                     return;
                 }
 
-                String worldName = path.getFileName().toString().split("\\.polar")[0];
-
-                Config config = Config.readFromConfig(getConfig(), worldName);
-
-                if (!config.loadOnStartup()) return;
-
-                getLogger().info("Loading polar world: " + worldName);
-
-                Polar.loadWorldFromFile(worldName);
+                worldNames.add(path.getFileName().toString().split("\\.polar")[0]);
             });
         } catch (IOException e) {
             getLogger().warning("Failed to load world on startup");
             ExceptionUtil.log(e);
         }
+
+        StartupLoader.loadWorlds(getConfig(), worldNames);
+        IdleWorldMonitor.start();
+
+        PolarWorldPool.loadFromConfig(getConfig());
     }
 
     @Override
@@ -88,7 +93,7 @@ public final class PolarPaper extends JavaPlugin {
 
             long before = System.nanoTime();
             Polar.updateConfig(world, world.getName());
-            Polar.saveWorldToFile(world);
+            Polar.saveWorldToFile(world, generator.getConfig().stopCompression());
             int ms = (int) ((System.nanoTime() - before) / 1_000_000);
             PolarPaper.logger().info(String.format("Saved '%s' in %sms", world.getName(), ms));
         }
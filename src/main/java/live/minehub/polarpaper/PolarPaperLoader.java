@@ -14,6 +14,7 @@ public final class PolarPaperLoader implements PluginLoader {
     public void classloader(PluginClasspathBuilder builder) {
         MavenLibraryResolver resolver = new MavenLibraryResolver();
         resolver.addDependency(new Dependency(new DefaultArtifact("com.github.luben:zstd-jni:1.5.7-6"), null));
+        resolver.addDependency(new Dependency(new DefaultArtifact("org.lz4:lz4-java:1.8.0"), null));
         resolver.addRepository(new RemoteRepository.Builder("central", "default", MavenLibraryResolver.MAVEN_CENTRAL_DEFAULT_MIRROR).build());
 
         builder.addLibrary(resolver);
@@ -1,6 +1,7 @@
 package live.minehub.polarpaper;
 
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictDecompress;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
 import io.netty.buffer.ByteBuf;
@@ -10,16 +11,19 @@ import live.minehub.polarpaper.PolarSection.LightContent;
 import live.minehub.polarpaper.source.PolarSource;
 import live.minehub.polarpaper.userdata.EntityUtil;
 import live.minehub.polarpaper.util.PaletteUtil;
+import net.jpountz.lz4.LZ4Factory;
 import net.kyori.adventure.key.Key;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtAccounter;
 import net.minecraft.nbt.NbtIo;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static live.minehub.polarpaper.util.ByteArrayUtil.*;
 
@@ -63,10 +67,19 @@ public class PolarReader {
 
 //        PolarPaper.logger().info("Polar compression: " + compression.name());
 
-        int compressedDataLength = getVarInt(bb);
-
-        // Replace the buffer with a "decompressed" version.
-        ByteBuf uncompressed = decompressBuffer(bb, compression, compressedDataLength);
+        ByteBuf uncompressed;
+        byte[] chunkDictionary = null;
+        if (compression == PolarWorld.CompressionType.ZSTD_CHUNKED) {
+            // Dictionary shared by every chunk frame, followed by the separately compressed header
+            chunkDictionary = getByteArray(bb);
+            int headerLength = getVarInt(bb);
+            uncompressed = Unpooled.wrappedBuffer(Zstd.decompress(getByteArray(bb), headerLength));
+        } else {
+            int compressedDataLength = getVarInt(bb);
+
+            // Replace the buffer with a "decompressed" version.
+            uncompressed = decompressBuffer(bb, compression, compressedDataLength);
+        }
 
         byte minSection = uncompressed.readByte();
         byte maxSection = uncompressed.readByte();
@@ -81,22 +94,76 @@ public class PolarReader {
             userData = bytes;
         }
 
-        int chunkCount = getVarInt(uncompressed);
-        List<PolarChunk> chunks = new ArrayList<>(chunkCount);
-        for (int i = 0; i < chunkCount; i++) {
-            chunks.add(readChunk(dataConverter, version, dataVersion, uncompressed, maxSection - minSection + 1));
+        // Section dictionary, each distinct section is decoded once and shared between chunks
+        PolarSection[] sectionDictionary = null;
+        if (version >= PolarWorld.VERSION_SECTION_DICTIONARY) {
+            int sectionCount = getVarInt(uncompressed);
+            sectionDictionary = new PolarSection[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                sectionDictionary[i] = readSection(dataConverter, version, dataVersion, uncompressed);
+            }
+        }
+
+        List<PolarChunk> chunks;
+        if (chunkDictionary != null) {
+            chunks = readChunkFrames(dataConverter, version, dataVersion, bb, maxSection - minSection + 1, sectionDictionary, chunkDictionary);
+        } else {
+            int chunkCount = getVarInt(uncompressed);
+            chunks = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(readChunk(dataConverter, version, dataVersion, uncompressed, maxSection - minSection + 1, sectionDictionary));
+            }
         }
 
         return new PolarWorld(version, dataVersion, compression, minSection, maxSection, userData, chunks);
     }
 
-    private static @NotNull PolarChunk readChunk(@NotNull PolarDataConverter dataConverter, short version, int dataVersion, @NotNull ByteBuf bb, int sectionCount) {
+    private static @NotNull List<PolarChunk> readChunkFrames(@NotNull PolarDataConverter dataConverter, short version, int dataVersion, @NotNull ByteBuf bb, int sectionCount, PolarSection @Nullable [] sectionDictionary, byte @NotNull [] chunkDictionary) {
+        int chunkCount = getVarInt(bb);
+        int[] lengths = new int[chunkCount];
+        byte[][] frames = new byte[chunkCount][];
+        for (int i = 0; i < chunkCount; i++) {
+            getVarInt(bb); // chunk x
+            getVarInt(bb); // chunk z
+            lengths[i] = getVarInt(bb);
+            frames[i] = getByteArray(bb);
+        }
+
+        // Frames are independent so they can be decompressed and decoded in parallel
+        try (ZstdDictDecompress dictDecompress = chunkDictionary.length == 0 ? null : new ZstdDictDecompress(chunkDictionary)) {
+            return IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(i -> {
+                        byte[] record = dictDecompress == null
+                                ? Zstd.decompress(frames[i], lengths[i])
+                                : Zstd.decompress(frames[i], dictDecompress, lengths[i]);
+                        return readChunk(dataConverter, version, dataVersion, Unpooled.wrappedBuffer(record), sectionCount, sectionDictionary);
+                    })
+                    .toList();
+        }
+    }
+
+    /**
+     * Decodes a chunk written by {@link PolarWriter#writeChunkRecord(PolarChunk, int)}.
+     * The record is already in the latest format so no data conversion is applied.
+     */
+    static @NotNull PolarChunk readChunkRecord(byte @NotNull [] record, int sectionCount) {
+        ByteBuf bb = Unpooled.wrappedBuffer(record);
+        return readChunk(PolarDataConverter.NOOP, PolarWorld.LATEST_VERSION, PolarDataConverter.NOOP.dataVersion(), bb, sectionCount, null);
+    }
+
+    static @NotNull PolarChunk readChunk(@NotNull PolarDataConverter dataConverter, short version, int dataVersion, @NotNull ByteBuf bb, int sectionCount, PolarSection @Nullable [] sectionDictionary) {
         var chunkX = getVarInt(bb);
         var chunkZ = getVarInt(bb);
 
         var sections = new PolarSection[sectionCount];
         for (int i = 0; i < sectionCount; i++) {
-            sections[i] = readSection(dataConverter, version, dataVersion, bb);
+            if (sectionDictionary != null) {
+                int sectionIndex = getVarInt(bb);
+                assertThat(sectionIndex >= 0 && sectionIndex < sectionDictionary.length, "Invalid section index: " + sectionIndex);
+                sections[i] = sectionDictionary[sectionIndex];
+            } else {
+                sections[i] = readSection(dataConverter, version, dataVersion, bb);
+            }
         }
 
         int blockEntityCount = getVarInt(bb);
@@ -164,7 +231,7 @@ public class PolarReader {
         );
     }
 
-    private static @NotNull PolarSection readSection(@NotNull PolarDataConverter dataConverter, short version, int dataVersion, @NotNull ByteBuf bb) {
+    static @NotNull PolarSection readSection(@NotNull PolarDataConverter dataConverter, short version, int dataVersion, @NotNull ByteBuf bb) {
         // If section is empty exit immediately
         if (bb.readByte() == 1) return new PolarSection();
 
@@ -285,6 +352,17 @@ public class PolarReader {
                 var decompressed = Zstd.decompress(bytes, compressedLength);
                 yield Unpooled.wrappedBuffer(decompressed);
             }
+            case ZSTD_CHUNKED -> throw new Error("Chunked worlds are decompressed per chunk");
+            case LZ4 -> {
+                int length = buffer.capacity() - buffer.readerIndex();
+                assertThat(length >= 0, "Invalid remaining: " + length);
+
+                byte[] bytes = new byte[length];
+                buffer.readBytes(bytes);
+
+                var decompressed = LZ4Factory.fastestInstance().safeDecompressor().decompress(bytes, compressedLength);
+                yield Unpooled.wrappedBuffer(decompressed);
+            }
         };
     }
 
@@ -6,10 +6,16 @@ import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManage
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import com.google.common.collect.Iterators;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import live.minehub.polarpaper.source.PolarSource;
 import live.minehub.polarpaper.util.CoordConversion;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import net.jpountz.lz4.LZ4Factory;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.LevelChunkSection;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
@@ -22,15 +28,26 @@ import org.bukkit.generator.ChunkGenerator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 public class PolarWorld {
 
     public static final int MAGIC_NUMBER = 0x506F6C72; // `Polr`
-    public static final short LATEST_VERSION = 7;
+    public static final short LATEST_VERSION = 9;
 
     static final short VERSION_UNIFIED_LIGHT = 1;
     static final short VERSION_USERDATA_OPT_BLOCK_ENT_NBT = 2;
@@ -40,6 +57,7 @@ public class PolarWorld {
     static final short VERSION_DATA_CONVERTER = 6;
     static final short VERSION_IMPROVED_LIGHT = 7;
     static final short VERSION_DEPRECATED_ENTITIES = 8;
+    static final short VERSION_SECTION_DICTIONARY = 9;
 
     public static CompressionType DEFAULT_COMPRESSION = CompressionType.ZSTD;
 
@@ -53,10 +71,29 @@ public class PolarWorld {
     private final byte maxSection;
     private byte @NotNull [] userData;
 
-    // Chunk data
-    private final Long2ObjectMap<PolarChunk> chunks = new Long2ObjectOpenHashMap<>();
+    // Chunk data, only holds the chunks changed from the template if there is one
+    private final @Nullable PolarWorld template;
+    private final LongSet removedTemplateChunks = new LongOpenHashSet();
+    // Without a template the encoded world as it was loaded is kept to reset to, with the chunks changed since
+    private byte @Nullable [] baseline = null;
+    private final LongSet changedSinceBaseline = new LongOpenHashSet();
+    private final Long2ObjectMap<ResidentChunk> chunks = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<EvictedChunk> evictedChunks = new Long2ObjectOpenHashMap<>();
     private final ReentrantReadWriteLock chunksLock = new ReentrantReadWriteLock();
 
+    // Chunk eviction
+    private volatile long chunkMemoryBudget = -1;
+    private volatile long residentChunkBytes = 0;
+    private final AtomicLong accessClock = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile long savedModification = 0;
+
+    private final Map<Long, CompletableFuture<Void>> pendingCaptures = new ConcurrentHashMap<>();
+    private volatile boolean released = false;
+    private final LongAdder chunkEvictions = new LongAdder();
+    private final LongAdder chunkReloads = new LongAdder();
+
     public PolarWorld(byte minSection, byte maxSection) {
         this(LATEST_VERSION, Bukkit.getUnsafe().getDataVersion(), DEFAULT_COMPRESSION, minSection, maxSection, new byte[0], List.of());
     }
@@ -69,6 +106,19 @@ public class PolarWorld {
             byte @NotNull [] userData,
             @NotNull List<PolarChunk> chunks
     ) {
+        this(version, dataVersion, compression, minSection, maxSection, userData, chunks, null);
+    }
+
+    private PolarWorld(
+            short version,
+            int dataVersion,
+            @NotNull CompressionType compression,
+            byte minSection, byte maxSection,
+            byte @NotNull [] userData,
+            @NotNull List<PolarChunk> chunks,
+            @Nullable PolarWorld template
+    ) {
+        this.template = template;
         this.version = version;
         this.dataVersion = dataVersion;
         this.compression = compression;
@@ -79,13 +129,22 @@ public class PolarWorld {
 
         for (var chunk : chunks) {
             var index = CoordConversion.chunkIndex(chunk.x(), chunk.z());
-            this.chunks.put(index, chunk);
+            putResident(index, chunk, 0, false);
         }
     }
 
     public enum CompressionType {
         NONE,
-        ZSTD;
+        ZSTD,
+        /**
+         * Every chunk is compressed as its own zstd frame using a dictionary trained from the world,
+         * allowing chunks to be decompressed independently (and in parallel)
+         */
+        ZSTD_CHUNKED,
+        /**
+         * Faster to decompress than zstd at the cost of larger files
+         */
+        LZ4;
 
         private static final CompressionType[] VALUES = values();
 
@@ -127,38 +186,490 @@ public class PolarWorld {
         this.userData = userData;
     }
 
+    /**
+     * Creates a new world backed by this one. Chunks are read from this world until they are
+     * updated or removed in the new world, so many worlds can share the memory of one template.
+     * The template should not be modified after instances have been created from it.
+     *
+     * @return A new polar world with no chunks of its own
+     */
+    public @NotNull PolarWorld newInstance() {
+        return new PolarWorld(version, dataVersion, compression, minSection, maxSection, userData, List.of(), this);
+    }
+
+    /**
+     * @return The world this world was created from with {@link #newInstance()}, or null
+     */
+    public @Nullable PolarWorld template() {
+        return template;
+    }
+
+    /**
+     * Keeps the encoded world to reset to when this world has no template, usually the file it was loaded from.
+     * The bytes are held as they are (compressed) until the world is released
+     *
+     * @param baseline The encoded polar world, or null to forget it
+     * @see #reset()
+     */
+    public void baseline(byte @Nullable [] baseline) {
+        chunksLock.writeLock().lock();
+        this.baseline = baseline;
+        changedSinceBaseline.clear();
+        chunksLock.writeLock().unlock();
+    }
+
+    /**
+     * @return Whether this world has a template or a baseline to {@link #reset()} to
+     */
+    public boolean canReset() {
+        return template != null || baseline != null;
+    }
+
+    /**
+     * Discards every chunk changed in this world, so all chunks are read from the template again or restored
+     * from the baseline the world was loaded from
+     *
+     * @return The indices of the chunks that were changed, empty if there is nothing to reset to
+     * @see CoordConversion#chunkIndex(int, int)
+     * @see #baseline(byte[])
+     */
+    public @NotNull LongSet reset() {
+        if (template != null) return resetToTemplate();
+
+        byte[] baseline = this.baseline;
+        if (baseline == null) return new LongOpenHashSet();
+
+        PolarWorld original = PolarReader.read(baseline);
+
+        // A capture finishing after the reset would put the old changes back
+        awaitPendingCaptures();
+        // The restored chunks differ from what was last saved, so they stay dirty until the next save
+        long modification = modifications.incrementAndGet();
+
+        chunksLock.writeLock().lock();
+        LongSet changed = new LongOpenHashSet(changedSinceBaseline);
+        for (long index : changed) {
+            ResidentChunk prev = chunks.remove(index);
+            if (prev != null) residentChunkBytes -= prev.size;
+            evictedChunks.remove(index);
+
+            PolarChunk chunk = original.chunkAt(CoordConversion.chunkX(index), CoordConversion.chunkZ(index));
+            if (chunk != null) putResident(index, chunk, modification, false);
+        }
+        changedSinceBaseline.clear();
+        chunksLock.writeLock().unlock();
+
+        return changed;
+    }
+
+    private @NotNull LongSet resetToTemplate() {
+        LongSet changed = new LongOpenHashSet();
+        if (template == null) return changed;
+
+        // A capture finishing after the reset would put the old changes back
+        awaitPendingCaptures();
+        modifications.incrementAndGet();
+
+        chunksLock.writeLock().lock();
+        changed.addAll(chunks.keySet());
+        changed.addAll(evictedChunks.keySet());
+        changed.addAll(removedTemplateChunks);
+        chunks.clear();
+        evictedChunks.clear();
+        removedTemplateChunks.clear();
+        residentChunkBytes = 0;
+        chunksLock.writeLock().unlock();
+
+        return changed;
+    }
+
     public @Nullable PolarChunk chunkAt(int x, int z) {
+        long index = CoordConversion.chunkIndex(x, z);
+
+        // A chunk that was just unloaded may still be converting
+        if (!pendingCaptures.isEmpty()) {
+            CompletableFuture<Void> capture = pendingCaptures.get(index);
+            if (capture != null) capture.join();
+        }
+
         chunksLock.readLock().lock();
-        PolarChunk chunk = chunks.getOrDefault(CoordConversion.chunkIndex(x, z), null);
+        ResidentChunk resident = chunks.get(index);
+        EvictedChunk evicted = resident == null ? evictedChunks.get(index) : null;
+        boolean removed = template != null && resident == null && evicted == null && removedTemplateChunks.contains(index);
         chunksLock.readLock().unlock();
+
+        if (resident != null) {
+            resident.lastAccess = accessClock.incrementAndGet();
+            return resident.chunk;
+        }
+        if (evicted == null) {
+            if (template == null || removed) return null;
+            return template.chunkAt(x, z);
+        }
+
+        PolarChunk chunk = evicted.decode(sectionCount());
+        chunkReloads.increment();
+
+        chunksLock.writeLock().lock();
+        if (evictedChunks.get(index) == evicted) {
+            // Only generated chunks with no unsaved changes are evicted
+            evictedChunks.remove(index);
+            putResident(index, chunk, 0, true);
+        } else {
+            // Another thread reloaded or replaced the chunk while it was being decoded
+            ResidentChunk current = chunks.get(index);
+            chunk = current == null ? null : current.chunk;
+        }
+        chunksLock.writeLock().unlock();
+
+        evictIfNeeded();
         return chunk;
     }
 
     public void removeChunkAt(int x, int z) {
+        modifications.incrementAndGet();
+        long index = CoordConversion.chunkIndex(x, z);
         chunksLock.writeLock().lock();
-        chunks.remove(CoordConversion.chunkIndex(x, z));
+        ResidentChunk prev = chunks.remove(index);
+        if (prev != null) residentChunkBytes -= prev.size;
+        evictedChunks.remove(index);
+        if (template != null) removedTemplateChunks.add(index);
+        if (baseline != null) changedSinceBaseline.add(index);
         chunksLock.writeLock().unlock();
     }
 
     public void updateChunkAt(int x, int z, @NotNull PolarChunk chunk) {
+        updateChunkAt(x, z, chunk, false);
+    }
+
+    private void updateChunkAt(int x, int z, @NotNull PolarChunk chunk, boolean generated) {
+        long modification = modifications.incrementAndGet();
+        long index = CoordConversion.chunkIndex(x, z);
         chunksLock.writeLock().lock();
-        chunks.put(CoordConversion.chunkIndex(x, z), chunk);
+        evictedChunks.remove(index);
+        removedTemplateChunks.remove(index);
+        if (baseline != null) changedSinceBaseline.add(index);
+        putResident(index, chunk, modification, generated);
         chunksLock.writeLock().unlock();
+
+        evictIfNeeded();
     }
 
+    /**
+     * Marks a chunk as generated in the bukkit world, so it can be evicted once it has no unsaved changes
+     */
+    public void markGenerated(int x, int z) {
+        chunksLock.readLock().lock();
+        ResidentChunk resident = chunks.get(CoordConversion.chunkIndex(x, z));
+        chunksLock.readLock().unlock();
+        if (resident != null) resident.generated = true;
+    }
+
+    /**
+     * Marks every change up to the given modification count as saved, allowing those chunks to be evicted
+     *
+     * @param modificationCount The {@link #modificationCount()} the saved data was written at
+     */
+    public void markSaved(long modificationCount) {
+        if (modificationCount > savedModification) savedModification = modificationCount;
+        evictIfNeeded();
+    }
+
+    /**
+     * Returns a snapshot of every chunk in this world, including chunks inherited from the template.
+     * Evicted chunks are decoded while iterating but are not made resident again.
+     */
     public @NotNull Collection<PolarChunk> chunks() {
-        return chunks.values();
+        chunksLock.readLock().lock();
+        List<PolarChunk> resident = new ArrayList<>(chunks.size());
+        for (ResidentChunk residentChunk : chunks.values()) {
+            resident.add(residentChunk.chunk);
+        }
+        List<EvictedChunk> evicted = new ArrayList<>(evictedChunks.values());
+        if (template != null) {
+            // Anything overridden or removed here hides the template's chunk
+            LongSet hidden = new LongOpenHashSet(removedTemplateChunks);
+            hidden.addAll(chunks.keySet());
+            hidden.addAll(evictedChunks.keySet());
+            for (PolarChunk templateChunk : template.chunks()) {
+                if (hidden.contains(CoordConversion.chunkIndex(templateChunk.x(), templateChunk.z()))) continue;
+                resident.add(templateChunk);
+            }
+        }
+        chunksLock.readLock().unlock();
+
+        if (evicted.isEmpty()) return resident;
+
+        int sectionCount = sectionCount();
+        return new AbstractCollection<>() {
+            @Override
+            public @NotNull Iterator<PolarChunk> iterator() {
+                return Iterators.concat(
+                        resident.iterator(),
+                        Iterators.transform(evicted.iterator(), evictedChunk -> evictedChunk.decode(sectionCount))
+                );
+            }
+
+            @Override
+            public int size() {
+                return resident.size() + evicted.size();
+            }
+        };
     }
 
     public int nonEmptyChunks() {
+        if (template != null) {
+            int count = 0;
+            for (PolarChunk chunk : chunks()) {
+                if (chunk.isEmpty()) continue;
+                count++;
+            }
+            return count;
+        }
+
         int count = 0;
-        for (PolarChunk chunk : chunks()) {
-            if (chunk.isEmpty()) continue;
+        chunksLock.readLock().lock();
+        for (ResidentChunk resident : chunks.values()) {
+            if (resident.chunk.isEmpty()) continue;
+            count++;
+        }
+        for (EvictedChunk evicted : evictedChunks.values()) {
+            if (evicted.empty()) continue;
             count++;
         }
+        chunksLock.readLock().unlock();
         return count;
     }
 
+    /**
+     * @return The number of chunks in this world, including chunks inherited from the template
+     */
+    public int chunkCount() {
+        return chunkIndices().size();
+    }
+
+    /**
+     * @return The indices of every chunk in this world, including ones read from the template
+     * @see CoordConversion#chunkIndex(int, int)
+     */
+    public @NotNull LongSet chunkIndices() {
+        LongSet indices = template == null ? new LongOpenHashSet() : template.chunkIndices();
+        chunksLock.readLock().lock();
+        indices.removeAll(removedTemplateChunks);
+        indices.addAll(chunks.keySet());
+        indices.addAll(evictedChunks.keySet());
+        chunksLock.readLock().unlock();
+        return indices;
+    }
+
+    private int sectionCount() {
+        return maxSection - minSection + 1;
+    }
+
+    /**
+     * Drops every chunk held by this world, for once its bukkit world has been unloaded
+     * The template is not affected. The world is empty afterwards and should not be used again
+     *
+     * @return The approximate memory released in bytes
+     */
+    public long release() {
+        awaitPendingCaptures();
+        released = true;
+
+        chunksLock.writeLock().lock();
+        long releasedBytes = residentChunkBytes;
+        for (EvictedChunk evicted : evictedChunks.values()) {
+            releasedBytes += evicted.data().length;
+        }
+        chunks.clear();
+        evictedChunks.clear();
+        removedTemplateChunks.clear();
+        baseline = null;
+        changedSinceBaseline.clear();
+        residentChunkBytes = 0;
+        chunksLock.writeLock().unlock();
+
+        return releasedBytes;
+    }
+
+    /**
+     * Limits how much memory decoded chunks may use. When over budget the least recently used chunks
+     * are evicted asynchronously into a compact compressed form and decoded again the next time they are accessed.
+     * Only chunks that have been generated and have no unsaved changes are evicted.
+     *
+     * @param bytes The approximate budget in bytes, or -1 to keep every chunk decoded
+     */
+    public void chunkMemoryBudget(long bytes) {
+        this.chunkMemoryBudget = bytes;
+        evictIfNeeded();
+    }
+
+    public long chunkMemoryBudget() {
+        return chunkMemoryBudget;
+    }
+
+    /**
+     * @return The estimated memory used by decoded chunks in bytes
+     */
+    public long residentChunkBytes() {
+        return residentChunkBytes;
+    }
+
+    public int residentChunks() {
+        chunksLock.readLock().lock();
+        int size = chunks.size();
+        chunksLock.readLock().unlock();
+        return size;
+    }
+
+    public int evictedChunks() {
+        chunksLock.readLock().lock();
+        int size = evictedChunks.size();
+        chunksLock.readLock().unlock();
+        return size;
+    }
+
+    /**
+     * @return A counter that increases every time a chunk is updated or removed, used to tell if the world changed since a save
+     */
+    public long modificationCount() {
+        return modifications.get();
+    }
+
+    /**
+     * @return How many times a chunk has been evicted from memory
+     */
+    public long chunkEvictions() {
+        return chunkEvictions.sum();
+    }
+
+    /**
+     * @return How many times an evicted chunk has been decoded again
+     */
+    public long chunkReloads() {
+        return chunkReloads.sum();
+    }
+
+    // Must hold the write lock (or be in the constructor)
+    private void putResident(long index, @NotNull PolarChunk chunk, long modification, boolean generated) {
+        ResidentChunk prev = chunks.get(index);
+        ResidentChunk resident = new ResidentChunk(chunk, estimateSize(chunk), modification, accessClock.incrementAndGet());
+        resident.generated = generated || (prev != null && prev.generated);
+        chunks.put(index, resident);
+        residentChunkBytes += resident.size - (prev == null ? 0 : prev.size);
+    }
+
+    private void evictIfNeeded() {
+        long budget = chunkMemoryBudget;
+        if (budget < 0 || residentChunkBytes <= budget || released) return;
+        if (!evicting.compareAndSet(false, true)) return; // another thread is already evicting
+
+        // Encoding is too slow for the thread that touched the chunk, which is often the main thread
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
+            try {
+                evict(budget);
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to evict chunks");
+                ExceptionUtil.log(e);
+            } finally {
+                evicting.set(false);
+            }
+        });
+    }
+
+    private void evict(long budget) {
+        chunksLock.readLock().lock();
+        long[] indices = new long[chunks.size()];
+        ResidentChunk[] residents = new ResidentChunk[chunks.size()];
+        int i = 0;
+        for (Long2ObjectMap.Entry<ResidentChunk> entry : Long2ObjectMaps.fastIterable(chunks)) {
+            indices[i] = entry.getLongKey();
+            residents[i] = entry.getValue();
+            i++;
+        }
+        chunksLock.readLock().unlock();
+
+        Integer[] order = new Integer[indices.length];
+        Arrays.setAll(order, j -> j);
+        Arrays.sort(order, Comparator.comparingLong(j -> residents[j].lastAccess));
+
+        // Evict a little past the budget so eviction isn't triggered again by the next access
+        long target = budget - budget / 10;
+        int sectionCount = sectionCount();
+        for (int j : order) {
+            if (residentChunkBytes <= target) break;
+
+            ResidentChunk resident = residents[j];
+            // Chunks the world hasn't generated yet are about to be read, dirty chunks are about to be saved
+            if (!resident.generated || resident.modification > savedModification) continue;
+            EvictedChunk evicted = EvictedChunk.encode(resident.chunk, sectionCount);
+
+            chunksLock.writeLock().lock();
+            if (chunks.get(indices[j]) == resident) { // skip chunks replaced while encoding
+                chunks.remove(indices[j]);
+                residentChunkBytes -= resident.size;
+                evictedChunks.put(indices[j], evicted);
+                chunkEvictions.increment();
+            }
+            chunksLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rough estimate of the heap used by a decoded chunk.
+     * Sections shared with other chunks are counted for every chunk, so this errs on the high side.
+     */
+    private static long estimateSize(@NotNull PolarChunk chunk) {
+        long size = 64;
+        for (PolarSection section : chunk.sections()) {
+            size += 64;
+            if (section.isEmpty()) continue;
+
+            size += (section.blockPalette().length + section.biomePalette().length) * 48L;
+            if (section.blockData() != null) size += PolarSection.BLOCK_PALETTE_SIZE * 4L;
+            if (section.biomeData() != null) size += PolarSection.BIOME_PALETTE_SIZE * 4L;
+            if (section.blockLight() != null) size += section.blockLight().length;
+            if (section.skyLight() != null) size += section.skyLight().length;
+        }
+        size += chunk.blockEntities().size() * 256L;
+        for (int[] heightmap : chunk.heightmaps()) {
+            if (heightmap != null) size += heightmap.length * 4L;
+        }
+        size += chunk.userData().length;
+        return size;
+    }
+
+    private static final class ResidentChunk {
+        private final PolarChunk chunk;
+        private final long size;
+        private final long modification;
+        private volatile long lastAccess;
+        private volatile boolean generated;
+
+        private ResidentChunk(PolarChunk chunk, long size, long modification, long lastAccess) {
+            this.chunk = chunk;
+            this.size = size;
+            this.modification = modification;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * A chunk kept as an lz4 compressed record while it is not in use
+     */
+    private record EvictedChunk(byte[] data, int length, boolean empty) {
+        private static EvictedChunk encode(PolarChunk chunk, int sectionCount) {
+            byte[] record = PolarWriter.writeChunkRecord(chunk, sectionCount);
+            byte[] compressed = LZ4Factory.fastestInstance().fastCompressor().compress(record);
+            return new EvictedChunk(compressed, record.length, chunk.isEmpty());
+        }
+
+        private PolarChunk decode(int sectionCount) {
+            byte[] record = LZ4Factory.fastestInstance().safeDecompressor().decompress(data, length);
+            return PolarReader.readChunkRecord(record, sectionCount);
+        }
+    }
+
     /**
      * Get a polar world from a Bukkit world
      * @param world The bukkit world
@@ -171,6 +682,97 @@ public class PolarWorld {
         return polarGenerator.getPolarWorld();
     }
 
+    /**
+     * Stores a chunk that is being unloaded, so changes made to it are kept once its holder is gone.
+     * Block entities, heightmaps and entities are read on the calling thread (should be the main thread)
+     * and the blocks are converted asynchronously, so saving only has to write the chunks that are still loaded
+     *
+     * @param chunkHolder The holder of the chunk being unloaded
+     * @param polarWorldAccess Describes how userdata should be handled
+     */
+    public void captureUnloadingChunk(@NotNull NewChunkHolder chunkHolder, @NotNull PolarWorldAccess polarWorldAccess) {
+        if (released) return;
+
+        ChunkAccess currentChunk = chunkHolder.getCurrentChunk();
+        if (currentChunk == null) return;
+
+        int chunkX = chunkHolder.chunkX;
+        int chunkZ = chunkHolder.chunkZ;
+        ChunkEntitySlices entityChunk = chunkHolder.getEntityChunk();
+
+        if (!currentChunk.isUnsaved()) {
+            // Entities can move without the chunk being marked unsaved
+            if (entityChunk == null || onlyPlayers(entityChunk)) return;
+
+            PolarChunk prevChunk = chunkAt(chunkX, chunkZ);
+            if (prevChunk == null) return;
+            byte[] userData = entityUserData(currentChunk, entityChunk, polarWorldAccess);
+            if (Arrays.equals(userData, prevChunk.userData())) return;
+            updateChunkAt(chunkX, chunkZ, prevChunk.withUserData(userData), true);
+            return;
+        }
+
+        if (onlyPlayers(entityChunk) && isEmpty(currentChunk)) {
+            if (currentChunk.getPersistedStatus().isOrBefore(ChunkStatus.SURFACE)) return;
+            removeChunkAt(chunkX, chunkZ);
+            currentChunk.tryMarkSaved();
+            return;
+        }
+
+        Supplier<PolarChunk> conversion = PolarChunk.snapshot(chunkHolder, polarWorldAccess, BlockSelector.ALL, true);
+        currentChunk.tryMarkSaved();
+
+        long index = CoordConversion.chunkIndex(chunkX, chunkZ);
+        CompletableFuture<Void> capture = new CompletableFuture<>();
+        CompletableFuture<Void> previous = pendingCaptures.put(index, capture);
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
+            if (previous != null) previous.join();
+            try {
+                if (!released) updateChunkAt(chunkX, chunkZ, conversion.get(), true);
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to convert unloaded chunk " + chunkX + ", " + chunkZ);
+                ExceptionUtil.log(e);
+            }
+            pendingCaptures.remove(index, capture);
+            capture.complete(null);
+        });
+    }
+
+    private void awaitPendingCaptures() {
+        for (CompletableFuture<Void> capture : pendingCaptures.values()) {
+            capture.join();
+        }
+    }
+
+    private static boolean onlyPlayers(@Nullable ChunkEntitySlices entityChunk) {
+        if (entityChunk == null) return true;
+        for (net.minecraft.world.entity.Entity nmsEntity : entityChunk.getAllEntities()) {
+            Entity entity = nmsEntity.getBukkitEntity();
+            if (entity.getType() != EntityType.PLAYER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(ChunkAccess chunk) {
+        for (LevelChunkSection section : chunk.getSections()) {
+            if (!section.hasOnlyAir()) return false;
+        }
+        return true;
+    }
+
+    private static byte[] entityUserData(ChunkAccess chunk, ChunkEntitySlices entityChunk, PolarWorldAccess polarWorldAccess) {
+        ByteArrayDataOutput userDataOutput = ByteStreams.newDataOutput();
+        List<net.minecraft.world.entity.Entity> allEntities = entityChunk.getAllEntities();
+        Entity[] entitiesArray = new Entity[allEntities.size()];
+        for (int i = 0; i < allEntities.size(); i++) {
+            entitiesArray[i] = allEntities.get(i).getBukkitEntity();
+        }
+        polarWorldAccess.saveChunkData(chunk, chunk.blockEntities.entrySet(), entitiesArray, userDataOutput);
+        return userDataOutput.toByteArray();
+    }
+
     /**
      * Updates the chunks in this PolarWorld
      *
@@ -200,9 +802,13 @@ public class PolarWorld {
         ChunkSystemServerLevel chunkSystemServerLevel = ((CraftWorld) world).getHandle();
         ChunkHolderManager chunkHolderManager = chunkSystemServerLevel.moonrise$getChunkTaskScheduler().chunkHolderManager;
 
-        for (PolarChunk chunk : new ArrayList<>(chunks())) {
-            if (!blockSelector.testChunk(chunk.x(), chunk.z())) {
-                removeChunkAt(chunk.x(), chunk.z());
+        awaitPendingCaptures();
+
+        for (long index : chunkIndices()) {
+            int chunkX = CoordConversion.chunkX(index);
+            int chunkZ = CoordConversion.chunkZ(index);
+            if (!blockSelector.testChunk(chunkX, chunkZ)) {
+                removeChunkAt(chunkX, chunkZ);
             }
         }
 
@@ -217,31 +823,12 @@ public class PolarWorld {
             if (!blockSelector.testChunk(chunkX, chunkZ)) continue;
 
             ChunkEntitySlices entityChunk = chunkHolder.getEntityChunk();
-            boolean unsaved = blockSelector == BlockSelector.ALL || currentChunk.isUnsaved(); // if selector is not ALL blocks, we need to update
-
-            boolean onlyPlayers = true;
-            if (entityChunk != null) {
-                for (net.minecraft.world.entity.Entity nmsEntity : entityChunk.getAllEntities()) {
-                    Entity entity = nmsEntity.getBukkitEntity();
-                    if (entity.getType() != EntityType.PLAYER) {
-                        onlyPlayers = false;
-                        break;
-                    }
-                }
-            }
+            boolean unsaved = blockSelector != BlockSelector.ALL || currentChunk.isUnsaved(); // if selector is not ALL blocks, we need to update
 
-            if (onlyPlayers) { // if contains no entities or the entities are all players (only difference is blocks)
+            if (onlyPlayers(entityChunk)) { // if contains no entities or the entities are all players (only difference is blocks)
                 if (!unsaved) continue;
 
-                boolean allEmpty = true;
-                for (LevelChunkSection section : currentChunk.getSections()) {
-                    if (!section.hasOnlyAir()) {
-                        allEmpty = false;
-                        break;
-                    }
-                }
-
-                if (allEmpty) {
+                if (isEmpty(currentChunk)) {
                     // check if the chunk has generated the surface yet
                     // (otherwise we don't know if it's blank because its really blank, or because it hasn't generated yet)
                     if (currentChunk.getPersistedStatus().isOrBefore(ChunkStatus.SURFACE)) continue;
@@ -254,24 +841,17 @@ public class PolarWorld {
                     PolarChunk prevChunk = chunkAt(chunkX, chunkZ);
                     if (prevChunk == null) continue;
 
-                    // only update entities
-                    ByteArrayDataOutput userDataOutput = ByteStreams.newDataOutput();
-                    List<net.minecraft.world.entity.Entity> allEntities = entityChunk.getAllEntities();
-                    Entity[] entitiesArray = new Entity[allEntities.size()];
-                    for (int i = 0; i < allEntities.size(); i++) {
-                        entitiesArray[i] = allEntities.get(i).getBukkitEntity();
-                    }
-                    polarWorldAccess.saveChunkData(currentChunk, currentChunk.blockEntities.entrySet(), entitiesArray, userDataOutput);
-                    byte[] userData = userDataOutput.toByteArray();
-
-                    updateChunkAt(chunkX, chunkZ, prevChunk.withUserData(userData));
+                    // only update entities, unchanged chunks are left alone (and keep reading from the template)
+                    byte[] userData = entityUserData(currentChunk, entityChunk, polarWorldAccess);
+                    if (Arrays.equals(userData, prevChunk.userData())) continue;
+                    updateChunkAt(chunkX, chunkZ, prevChunk.withUserData(userData), true);
 
                     continue;
                 }
             }
 
             PolarChunk polarChunk = PolarChunk.convert(chunkHolder, polarWorldAccess, blockSelector);
-            updateChunkAt(chunkX, chunkZ, polarChunk);
+            updateChunkAt(chunkX, chunkZ, polarChunk, true);
 
             currentChunk.tryMarkSaved();
         }
@@ -0,0 +1,262 @@
+package live.minehub.polarpaper;
+
+import live.minehub.polarpaper.source.FilePolarSource;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps worlds created from templates ready ahead of time so they can be handed out without creating a level.
+ * Pooled worlds are created one at a time during quiet ticks, and are reset with {@link Polar#resetWorld(World)}
+ * and reused when released.
+ * <p>
+ * Should only be used from the main thread
+ */
+@SuppressWarnings("unused")
+public class PolarWorldPool {
+
+    private static final double QUIET_TICK_MILLIS = 40.0;
+    private static final int CREATE_INTERVAL_TICKS = 20;
+
+    private static final Map<String, Pool> POOLS = new LinkedHashMap<>();
+    private static final Map<String, Pool> IN_USE_WORLDS = new HashMap<>();
+    private static @Nullable BukkitTask fillTask = null;
+    private static int ticksSinceCreate = 0;
+
+    private PolarWorldPool() {
+
+    }
+
+    /**
+     * Sets how many worlds should be kept ready for a template, creating the pool if needed
+     *
+     * @param templateName The name of a registered template
+     * @param size The number of worlds to keep ready
+     * @see Polar#registerTemplate(String, PolarWorld)
+     */
+    public static void setSize(@NotNull String templateName, int size) {
+        Pool pool = POOLS.computeIfAbsent(templateName, Pool::new);
+        pool.size = Math.max(0, size);
+
+        // Drop worlds over the new size straight away
+        while (pool.ready.size() > pool.size) {
+            Polar.unloadWorld(pool.ready.pop(), false);
+        }
+
+        startFillTask();
+    }
+
+    /**
+     * Removes the pool for a template, unloading the worlds that were ready
+     * Worlds that are in use are unloaded when they are released
+     *
+     * @param templateName The name of the template
+     */
+    public static void removePool(@NotNull String templateName) {
+        Pool pool = POOLS.remove(templateName);
+        if (pool == null) return;
+
+        pool.size = 0;
+        while (!pool.ready.isEmpty()) {
+            Polar.unloadWorld(pool.ready.pop(), false);
+        }
+    }
+
+    /**
+     * Hands out a world created from the template, taking a ready world from the pool if there is one
+     *
+     * @param templateName The name of the template
+     * @return CompletableFuture with the world (completes immediately on a pool hit)
+     */
+    public static CompletableFuture<@Nullable World> acquire(@NotNull String templateName) {
+        Pool pool = POOLS.computeIfAbsent(templateName, Pool::new);
+
+        World world = pool.ready.poll();
+        if (world != null) {
+            pool.hits++;
+            IN_USE_WORLDS.put(world.getName(), pool);
+            return CompletableFuture.completedFuture(world);
+        }
+
+        pool.misses++;
+        return createPooledWorld(pool).thenApply(newWorld -> {
+            if (newWorld != null) IN_USE_WORLDS.put(newWorld.getName(), pool);
+            return newWorld;
+        });
+    }
+
+    /**
+     * Returns a world handed out by {@link #acquire(String)} to its pool
+     * The world is reset and kept ready, or unloaded if the pool is already full
+     *
+     * @param world The world to release (must not contain any players)
+     * @return Whether the world was released
+     */
+    public static boolean release(@NotNull World world) {
+        Pool pool = IN_USE_WORLDS.get(world.getName());
+        if (pool == null) return false;
+
+        if (!world.getPlayers().isEmpty()) {
+            PolarPaper.logger().warning("Cannot release '" + world.getName() + "' while there are still players in it");
+            return false;
+        }
+
+        IN_USE_WORLDS.remove(world.getName());
+
+        if (POOLS.get(pool.templateName) != pool || pool.ready.size() + pool.creating >= pool.size) {
+            Polar.unloadWorld(world, false);
+            return true;
+        }
+
+        Polar.resetWorld(world);
+        pool.recycled++;
+        pool.ready.add(world);
+        return true;
+    }
+
+    /**
+     * @return Whether the world was handed out by a pool and has not been released yet
+     */
+    public static boolean isInUse(@NotNull World world) {
+        return IN_USE_WORLDS.containsKey(world.getName());
+    }
+
+    /**
+     * @return Whether the world belongs to a pool, either ready or in use
+     */
+    public static boolean isPooled(@NotNull World world) {
+        if (IN_USE_WORLDS.containsKey(world.getName())) return true;
+        for (Pool pool : POOLS.values()) {
+            if (pool.ready.contains(world)) return true;
+        }
+        return false;
+    }
+
+    public static @NotNull Map<String, Stats> stats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (Pool pool : POOLS.values()) {
+            int inUse = 0;
+            for (Pool inUsePool : IN_USE_WORLDS.values()) {
+                if (inUsePool == pool) inUse++;
+            }
+            stats.put(pool.templateName, new Stats(pool.size, pool.ready.size(), pool.creating, inUse, pool.hits, pool.misses, pool.recycled));
+        }
+        return stats;
+    }
+
+    /**
+     * Creates the pools listed in the config, loading each template from the worlds folder
+     */
+    static void loadFromConfig(@NotNull FileConfiguration config) {
+        ConfigurationSection poolsSection = config.getConfigurationSection("pools");
+        if (poolsSection == null) return;
+
+        for (String templateName : poolsSection.getKeys(false)) {
+            int size = poolsSection.getInt(templateName + ".size", 0);
+            if (size <= 0) continue;
+
+            if (Polar.getTemplate(templateName) != null) {
+                setSize(templateName, size);
+                continue;
+            }
+
+            PolarPaper.logger().info("Loading polar template: " + templateName);
+            Polar.loadTemplate(FilePolarSource.defaultFolder(templateName), templateName).thenAccept(template -> {
+                if (template == null) {
+                    PolarPaper.logger().warning("Failed to load template '" + templateName + "' for its pool");
+                    return;
+                }
+                Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> setSize(templateName, size));
+            });
+        }
+    }
+
+    private static void startFillTask() {
+        if (fillTask != null) return;
+        fillTask = Bukkit.getScheduler().runTaskTimer(PolarPaper.getPlugin(), PolarWorldPool::fill, 1, 1);
+    }
+
+    private static void fill() {
+        if (++ticksSinceCreate < CREATE_INTERVAL_TICKS) return;
+        if (Bukkit.getServer().getAverageTickTime() > QUIET_TICK_MILLIS) return;
+
+        // Only create one world at a time so the cost is spread out
+        for (Pool pool : POOLS.values()) {
+            if (pool.creating > 0) return;
+        }
+
+        for (Pool pool : POOLS.values()) {
+            if (pool.ready.size() >= pool.size) continue;
+            if (Polar.getTemplate(pool.templateName) == null) continue;
+
+            ticksSinceCreate = 0;
+            createPooledWorld(pool).thenAccept(world -> {
+                if (world == null) return;
+                if (POOLS.get(pool.templateName) != pool || pool.ready.size() >= pool.size) {
+                    Polar.unloadWorld(world, false);
+                    return;
+                }
+                pool.ready.add(world);
+            });
+            return;
+        }
+    }
+
+    private static CompletableFuture<@Nullable World> createPooledWorld(Pool pool) {
+        String worldName;
+        do {
+            worldName = pool.templateName + "-pool-" + pool.nextId++;
+        } while (Bukkit.getWorld(worldName) != null);
+
+        // Pooled worlds use the template's config but are never saved
+        Config config = Config.readFromConfig(PolarPaper.getPlugin().getConfig(), pool.templateName).toBuilder()
+                .autoSaveIntervalTicks(-1)
+                .saveOnStop(false)
+                .loadOnStartup(false)
+                .build();
+
+        pool.creating++;
+        CompletableFuture<@Nullable World> future = new CompletableFuture<>();
+        Polar.createWorldFromTemplate(pool.templateName, worldName, config, PolarWorldAccess.POLAR_PAPER_FEATURES)
+                .whenComplete((world, throwable) -> Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> {
+                    pool.creating--;
+                    if (throwable != null) {
+                        PolarPaper.logger().warning("Failed to create a pooled world from '" + pool.templateName + "'");
+                        ExceptionUtil.log(throwable);
+                    }
+                    future.complete(throwable == null ? world : null);
+                }));
+        return future;
+    }
+
+    public record Stats(int size, int ready, int creating, int inUse, long hits, long misses, long recycled) {
+    }
+
+    private static final class Pool {
+        private final String templateName;
+        private final Deque<World> ready = new ArrayDeque<>();
+        private int size = 0;
+        private int creating = 0;
+        private int nextId = 0;
+        private long hits = 0;
+        private long misses = 0;
+        private long recycled = 0;
+
+        private Pool(String templateName) {
+            this.templateName = templateName;
+        }
+    }
+
+}
@@ -1,10 +1,25 @@
 package live.minehub.polarpaper;
 
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdException;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import live.minehub.polarpaper.util.PaletteUtil;
+import net.jpountz.lz4.LZ4Factory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
 
 import static live.minehub.polarpaper.util.ByteArrayUtil.*;
 
@@ -14,27 +29,48 @@ public class PolarWriter {
     }
 
     private static final int CHUNK_SECTION_SIZE = 16;
+    private static final int MIN_DICTIONARY_SAMPLES = 16;
+    private static final int MAX_DICTIONARY_SIZE = 112 * 1024;
+    private static final long MAX_DICTIONARY_SAMPLE_BYTES = 16 * 1024 * 1024;
 
     public static byte[] write(@NotNull PolarWorld world) {
         return write(world, PolarDataConverter.DEFAULT);
     }
 
+    public static byte[] write(@NotNull PolarWorld world, @NotNull CompressionOptions compressionOptions) {
+        return write(world, PolarDataConverter.DEFAULT, compressionOptions);
+    }
+
     public static byte[] write(@NotNull PolarWorld world, @NotNull PolarDataConverter dataConverter) {
-        ByteArrayDataOutput bb = ByteStreams.newDataOutput();
+        return write(world, dataConverter, CompressionOptions.DEFAULT);
+    }
 
-        bb.write(world.minSection());
-        bb.write(world.maxSection());
-        writeVarInt(world.userData().length, bb);
-        bb.write(world.userData());
+    public static byte[] write(@NotNull PolarWorld world, @NotNull PolarDataConverter dataConverter, @NotNull CompressionOptions compressionOptions) {
+        int sectionCount = world.maxSection() - world.minSection() + 1;
 
-        writeVarInt(world.nonEmptyChunks(), bb);
+        // Chunks are encoded as they are visited so evicted chunks never need to be decoded all at once
+        SectionDictionary sectionDictionary = new SectionDictionary();
+        IntList chunkXs = new IntArrayList();
+        IntList chunkZs = new IntArrayList();
+        List<byte[]> records = new ArrayList<>();
         for (PolarChunk chunk : world.chunks()) {
             if (chunk.isEmpty()) continue;
-            writeChunk(bb, chunk, world.maxSection() - world.minSection() + 1);
+
+            ByteArrayDataOutput chunkBB = ByteStreams.newDataOutput();
+            writeChunk(chunkBB, chunk, sectionCount, sectionDictionary);
+            records.add(chunkBB.toByteArray());
+            chunkXs.add(chunk.x());
+            chunkZs.add(chunk.z());
         }
 
-        byte[] contentBytes = bb.toByteArray();
+        ByteArrayDataOutput bb = ByteStreams.newDataOutput();
+
+        bb.write(world.minSection());
+        bb.write(world.maxSection());
+        writeVarInt(world.userData().length, bb);
+        bb.write(world.userData());
 
+        sectionDictionary.write(bb);
 
         // Create final buffer
         ByteArrayDataOutput finalBB = ByteStreams.newDataOutput();
@@ -42,6 +78,19 @@ public class PolarWriter {
         finalBB.writeShort(PolarWorld.LATEST_VERSION);
         writeVarInt(dataConverter.dataVersion(), finalBB);
         finalBB.write(world.compression().ordinal());
+
+        if (world.compression() == PolarWorld.CompressionType.ZSTD_CHUNKED) {
+            writeChunked(finalBB, bb.toByteArray(), records, chunkXs, chunkZs, compressionOptions);
+            return finalBB.toByteArray();
+        }
+
+        writeVarInt(records.size(), bb);
+        for (byte[] record : records) {
+            bb.write(record);
+        }
+
+        byte[] contentBytes = bb.toByteArray();
+
         switch (world.compression()) {
             case NONE -> {
                 writeVarInt(contentBytes.length, finalBB);
@@ -49,21 +98,119 @@ public class PolarWriter {
             }
             case ZSTD -> {
                 writeVarInt(contentBytes.length, finalBB);
-                finalBB.write(Zstd.compress(contentBytes));
+                finalBB.write(compressionOptions.compress(contentBytes));
+            }
+            case LZ4 -> {
+                writeVarInt(contentBytes.length, finalBB);
+                finalBB.write(LZ4Factory.fastestInstance().fastCompressor().compress(contentBytes));
             }
         }
 
         return finalBB.toByteArray();
     }
 
-    private static void writeChunk(@NotNull ByteArrayDataOutput bb, @NotNull PolarChunk chunk, int sectionCount) {
+    /**
+     * Writes each chunk as its own zstd frame so chunks can be decompressed independently.
+     * A dictionary is trained from the chunk records themselves and stored once before the frames,
+     * which keeps the ratio close to compressing the whole world as a single frame.
+     */
+    private static void writeChunked(@NotNull ByteArrayDataOutput finalBB, byte @NotNull [] headerBytes,
+                                     @NotNull List<byte[]> chunkRecords, @NotNull IntList chunkXs, @NotNull IntList chunkZs,
+                                     @NotNull CompressionOptions compressionOptions) {
+        byte[][] records = chunkRecords.toArray(new byte[0][]);
+
+        byte[] dictionary = trainDictionary(records);
+
+        // Frames are far too small for zstd workers or long distance matching, only the level applies
+        int level = compressionOptions.level();
+        byte[][] frames = new byte[records.length][];
+        try (ZstdDictCompress dictCompress = dictionary.length == 0 ? null : new ZstdDictCompress(dictionary, level)) {
+            IntStream.range(0, records.length).parallel().forEach(i -> frames[i] = dictCompress == null
+                    ? Zstd.compress(records[i], level)
+                    : Zstd.compress(records[i], dictCompress));
+        }
+
+        List<ChunkFrame> chunkFrames = new ArrayList<>(records.length);
+        for (int i = 0; i < records.length; i++) {
+            chunkFrames.add(new ChunkFrame(chunkXs.getInt(i), chunkZs.getInt(i), records[i].length, frames[i]));
+        }
+        writeFrames(finalBB, dictionary, headerBytes, chunkFrames, compressionOptions);
+    }
+
+    /**
+     * Writes the body of a chunked world from chunk frames that are already compressed with the given dictionary
+     */
+    static void writeFrames(@NotNull ByteArrayDataOutput finalBB, byte @NotNull [] dictionary, byte @NotNull [] headerBytes,
+                            @NotNull List<ChunkFrame> frames, @NotNull CompressionOptions compressionOptions) {
+        writeByteArray(dictionary, finalBB);
+
+        writeVarInt(headerBytes.length, finalBB);
+        writeByteArray(compressionOptions.compress(headerBytes), finalBB);
+
+        writeVarInt(frames.size(), finalBB);
+        for (ChunkFrame frame : frames) {
+            writeVarInt(frame.x(), finalBB);
+            writeVarInt(frame.z(), finalBB);
+            writeVarInt(frame.length(), finalBB);
+            writeByteArray(frame.frame(), finalBB);
+        }
+    }
+
+    /**
+     * Trains a zstd dictionary from the given chunk records
+     *
+     * @return The dictionary, or an empty array if there is not enough data to train one
+     */
+    private static byte @NotNull [] trainDictionary(byte @NotNull [] @NotNull [] records) {
+        if (records.length < MIN_DICTIONARY_SAMPLES) return new byte[0];
+
+        long totalSize = 0;
+        for (byte[] record : records) {
+            totalSize += record.length;
+        }
+
+        // Sample evenly across the world if there is more data than we want to train on
+        int stride = (int) Math.max(1, totalSize / MAX_DICTIONARY_SAMPLE_BYTES + 1);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < records.length; i += stride) {
+            samples.add(records[i]);
+        }
+        if (samples.size() < MIN_DICTIONARY_SAMPLES) return new byte[0];
+
+        byte[] dictBuffer = new byte[MAX_DICTIONARY_SIZE];
+        try {
+            long dictSize = Zstd.trainFromBuffer(samples.toArray(new byte[0][]), dictBuffer);
+            if (Zstd.isError(dictSize)) return new byte[0];
+            return Arrays.copyOf(dictBuffer, (int) dictSize);
+        } catch (ZstdException e) {
+            // Training fails on very small or very uniform worlds, frames are just compressed without a dictionary
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Encodes a single chunk with its sections written inline
+     *
+     * @see PolarReader#readChunkRecord(byte[], int)
+     */
+    static byte @NotNull [] writeChunkRecord(@NotNull PolarChunk chunk, int sectionCount) {
+        ByteArrayDataOutput bb = ByteStreams.newDataOutput();
+        writeChunk(bb, chunk, sectionCount, null);
+        return bb.toByteArray();
+    }
+
+    static void writeChunk(@NotNull ByteArrayDataOutput bb, @NotNull PolarChunk chunk, int sectionCount, @Nullable SectionDictionary sectionDictionary) {
         writeVarInt(chunk.x(), bb);
         writeVarInt(chunk.z(), bb);
 
         assert sectionCount == chunk.sections().length : "section count and chunk section length mismatch";
 
         for (var section : chunk.sections()) {
-            writeSection(bb, section);
+            if (sectionDictionary != null) {
+                writeVarInt(sectionDictionary.indexOf(section), bb);
+            } else {
+                writeSection(bb, section);
+            }
         }
 
         writeVarInt(chunk.blockEntities().size(), bb);
@@ -124,4 +271,62 @@ public class PolarWriter {
             bb.write(section.skyLight());
     }
 
-}
\ No newline at end of file
+    /**
+     * Stores every distinct section once. Sections are keyed by their encoded bytes so that
+     * identical sections (e.g. solid stone or water) are only written a single time and
+     * referenced by index from each chunk.
+     */
+    static final class SectionDictionary {
+        private final Map<ByteBuffer, Integer> indices = new HashMap<>();
+        // PolarSection has identity equality, weak keys let sections of evicted chunks be collected mid-write
+        private final Map<PolarSection, Integer> sectionIndices = new WeakHashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+
+        /**
+         * Adds an already encoded section as the next entry, used to keep the indices of a dictionary being copied
+         */
+        void add(@NotNull PolarSection section, byte @NotNull [] bytes) {
+            int index = entries.size();
+            entries.add(bytes);
+            indices.putIfAbsent(ByteBuffer.wrap(bytes), index);
+            sectionIndices.put(section, index);
+        }
+
+        int indexOf(@NotNull PolarSection section) {
+            // Sections read from a deduplicated world are shared instances, skip re-encoding them
+            Integer cached = sectionIndices.get(section);
+            if (cached != null) return cached;
+
+            ByteArrayDataOutput sectionBB = ByteStreams.newDataOutput();
+            writeSection(sectionBB, section);
+            byte[] bytes = sectionBB.toByteArray();
+
+            Integer index = indices.get(ByteBuffer.wrap(bytes));
+            if (index == null) {
+                index = entries.size();
+                entries.add(bytes);
+                indices.put(ByteBuffer.wrap(bytes), index);
+            }
+
+            sectionIndices.put(section, index);
+            return index;
+        }
+
+        void write(@NotNull ByteArrayDataOutput bb) {
+            writeVarInt(entries.size(), bb);
+            for (byte[] entry : entries) {
+                bb.write(entry);
+            }
+        }
+    }
+
+    /**
+     * A chunk record compressed as its own zstd frame
+     *
+     * @param length The length of the uncompressed record
+     */
+    record ChunkFrame(int x, int z, int length, byte @NotNull [] frame) {
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package live.minehub.polarpaper;
+
+import live.minehub.polarpaper.source.FilePolarSource;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads the worlds that are set to load on startup, reading a limited number of files at once.
+ * Worlds are read in priority order and handed to the {@link WorldInitScheduler} in that same order,
+ * so higher priority worlds are always ready first even if a lower priority world finished reading sooner.
+ * Worlds with a priority below 0 are registered to load on first access instead.
+ */
+class StartupLoader {
+
+    private final List<Entry> entries;
+    private final int parallelism;
+    private final long startedAt = System.nanoTime();
+
+    private int nextRead = 0;
+    private int nextInit = 0;
+    private int ready = 0;
+
+    private StartupLoader(List<Entry> entries, int parallelism) {
+        this.entries = entries;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param config The plugin config
+     * @param worldNames The names of the worlds in the worlds folder
+     */
+    static void loadWorlds(@NotNull FileConfiguration config, @NotNull List<String> worldNames) {
+        List<Entry> entries = new ArrayList<>();
+        for (String worldName : worldNames) {
+            Config worldConfig = Config.readFromConfig(config, worldName);
+            if (!worldConfig.loadOnStartup()) continue;
+
+            if (worldConfig.loadPriority() < 0) {
+                Polar.registerLazyWorld(worldName);
+                continue;
+            }
+
+            entries.add(new Entry(worldName, worldConfig.loadPriority()));
+        }
+        if (entries.isEmpty()) return;
+
+        entries.sort(Comparator.comparingInt(Entry::priority).reversed().thenComparing(Entry::worldName));
+
+        int parallelism = Math.max(1, config.getInt("settings.startupLoadParallelism", 2));
+        new StartupLoader(entries, parallelism).start();
+    }
+
+    private synchronized void start() {
+        while (nextRead < entries.size() && nextRead < parallelism) {
+            readNext();
+        }
+    }
+
+    // Called while synchronized
+    private void readNext() {
+        Entry entry = entries.get(nextRead++);
+        PolarPaper.logger().info("Loading polar world: " + entry.worldName);
+
+        Polar.readWorld(FilePolarSource.defaultFolder(entry.worldName)).thenAccept(polarWorld -> {
+            synchronized (this) {
+                entry.read = true;
+                entry.polarWorld = polarWorld;
+                if (polarWorld == null) {
+                    PolarPaper.logger().warning("Failed to read polar world '" + entry.worldName + "'");
+                }
+
+                if (nextRead < entries.size()) readNext();
+                submitReadyInits();
+            }
+        });
+    }
+
+    // Called while synchronized
+    private void submitReadyInits() {
+        while (nextInit < entries.size() && entries.get(nextInit).read) {
+            Entry entry = entries.get(nextInit++);
+            PolarWorld polarWorld = entry.polarWorld;
+            entry.polarWorld = null;
+            if (polarWorld == null) {
+                worldReady(entry, false);
+                continue;
+            }
+
+            WorldInitScheduler.submit(entry.worldName, () -> {
+                Polar.createWorld(polarWorld, entry.worldName).thenAccept(world -> worldReady(entry, world != null));
+            });
+        }
+    }
+
+    private synchronized void worldReady(Entry entry, boolean successful) {
+        ready++;
+        if (successful) {
+            PolarPaper.logger().info(String.format("Polar world '%s' ready (%s/%s, priority %s)", entry.worldName, ready, entries.size(), entry.priority));
+        }
+
+        if (ready == entries.size()) {
+            int ms = (int) ((System.nanoTime() - startedAt) / 1_000_000);
+            PolarPaper.logger().info(String.format("Loaded %s startup worlds in %sms", entries.size(), ms));
+        }
+    }
+
+    private static final class Entry {
+        private final String worldName;
+        private final int priority;
+        private boolean read = false;
+        private @Nullable PolarWorld polarWorld = null;
+
+        private Entry(String worldName, int priority) {
+            this.worldName = worldName;
+            this.priority = priority;
+        }
+
+        private String worldName() {
+            return worldName;
+        }
+
+        private int priority() {
+            return priority;
+        }
+    }
+
+}
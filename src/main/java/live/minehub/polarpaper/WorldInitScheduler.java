@@ -0,0 +1,284 @@
+package live.minehub.polarpaper;
+
+import live.minehub.polarpaper.util.CoordConversion;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import net.minecraft.server.level.ServerLevel;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.craftbukkit.CraftWorld;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs world initialization on the main thread a limited number of worlds per tick, so worlds that finish
+ * loading at the same time don't all initialize in a single tick. Spawn areas (or every chunk) are then
+ * preloaded across ticks within a per-tick time budget.
+ */
+public class WorldInitScheduler {
+
+    private static final int MAX_CHUNKS_IN_FLIGHT = 16;
+
+    private static final Queue<InitTask> QUEUE = new ConcurrentLinkedQueue<>();
+    private static final List<ChunkPreload> PRELOADS = new ArrayList<>();
+    private static final Map<String, InitTiming> TIMINGS = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> PENDING_INITS = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Void>> SPAWN_PRELOADS = new ConcurrentHashMap<>();
+    private static @Nullable BukkitTask tickTask = null;
+
+    private static volatile int worldInitsPerTick = 1;
+    private static volatile long tickBudgetNanos = 10_000_000L;
+
+    private WorldInitScheduler() {
+
+    }
+
+    /**
+     * Reads the scheduler settings from the settings section of the config
+     */
+    public static void loadSettings(@NotNull FileConfiguration config) {
+        worldInitsPerTick = Math.max(1, config.getInt("settings.worldInitsPerTick", 1));
+        tickBudgetNanos = Math.max(1, config.getLong("settings.worldInitBudgetMillis", 10)) * 1_000_000L;
+    }
+
+    /**
+     * Queues a world initialization to run on the main thread
+     * Can be called asynchronously
+     *
+     * @param worldName The world being initialized, used for timings
+     * @param init The initialization to run
+     */
+    public static void submit(@NotNull String worldName, @NotNull Runnable init) {
+        TIMINGS.put(worldName, new InitTiming(System.nanoTime(), -1, -1, 0, -1));
+        PENDING_INITS.merge(worldName, 1, Integer::sum);
+        QUEUE.add(new InitTask(worldName, init));
+        Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), WorldInitScheduler::startTickTask);
+    }
+
+    /**
+     * Queues a further initialization step for a world, its timings are added to the world's existing timings
+     */
+    static void submitStep(@NotNull String worldName, @NotNull Runnable init) {
+        TIMINGS.putIfAbsent(worldName, new InitTiming(System.nanoTime(), -1, -1, 0, -1));
+        PENDING_INITS.merge(worldName, 1, Integer::sum);
+        QUEUE.add(new InitTask(worldName, init));
+        Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), WorldInitScheduler::startTickTask);
+    }
+
+    /**
+     * Loads the chunks around the spawn of a world over multiple ticks and keeps them loaded
+     * Waits for the world to be added if it is still queued for initialization.
+     * If the spawn of the world is already being preloaded, that preload is returned instead
+     *
+     * @param world The world
+     * @param spawn The spawn location to load around
+     * @param radius The radius in chunks, does nothing if below 0
+     * @return CompletableFuture that completes once every chunk is loaded
+     */
+    public static CompletableFuture<Void> preloadSpawn(@NotNull World world, @NotNull Location spawn, int radius) {
+        if (radius < 0) return CompletableFuture.completedFuture(null);
+
+        String worldName = world.getName();
+        CompletableFuture<Void> running = SPAWN_PRELOADS.get(worldName);
+        if (running != null) return running;
+
+        int centerX = spawn.getBlockX() >> 4;
+        int centerZ = spawn.getBlockZ() >> 4;
+
+        // Nearest chunks first so the spawn chunk itself is ready soonest
+        List<long[]> chunks = new ArrayList<>();
+        for (int r = 0; r <= radius; r++) {
+            for (int x = -r; x <= r; x++) {
+                for (int z = -r; z <= r; z++) {
+                    if (Math.max(Math.abs(x), Math.abs(z)) != r) continue;
+                    chunks.add(new long[]{centerX + x, centerZ + z});
+                }
+            }
+        }
+
+        CompletableFuture<Void> future = preload(world, chunks, MAX_CHUNKS_IN_FLIGHT);
+        SPAWN_PRELOADS.put(worldName, future);
+        future.whenComplete((v, throwable) -> SPAWN_PRELOADS.remove(worldName, future));
+        return future;
+    }
+
+    /**
+     * Loads every chunk of a polar world and keeps them loaded, so no chunk has to be generated while players are in it
+     * Chunks are requested across ticks, with enough in flight at once to keep every chunk worker busy
+     *
+     * @param world The world
+     * @param polarWorld The polar world the chunks are read from
+     * @param spawn Chunks closest to the spawn are loaded first
+     * @return CompletableFuture that completes once every chunk is loaded
+     */
+    public static CompletableFuture<Void> preloadAllChunks(@NotNull World world, @NotNull PolarWorld polarWorld, @NotNull Location spawn) {
+        int centerX = spawn.getBlockX() >> 4;
+        int centerZ = spawn.getBlockZ() >> 4;
+
+        List<long[]> chunks = new ArrayList<>();
+        for (long index : polarWorld.chunkIndices()) {
+            chunks.add(new long[]{CoordConversion.chunkX(index), CoordConversion.chunkZ(index)});
+        }
+        chunks.sort(Comparator.comparingLong(chunk -> Math.max(Math.abs(chunk[0] - centerX), Math.abs(chunk[1] - centerZ))));
+
+        int maxInFlight = Math.max(MAX_CHUNKS_IN_FLIGHT, Runtime.getRuntime().availableProcessors() * 4);
+        return preload(world, chunks, maxInFlight);
+    }
+
+    private static CompletableFuture<Void> preload(World world, List<long[]> chunks, int maxInFlight) {
+        ChunkPreload preload = new ChunkPreload(world, chunks, maxInFlight);
+        Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> {
+            PRELOADS.add(preload);
+            startTickTask();
+        });
+        return preload.future;
+    }
+
+    /**
+     * @return The number of worlds waiting to be initialized
+     */
+    public static int queueDepth() {
+        return QUEUE.size();
+    }
+
+    /**
+     * @return The number of chunks still waiting to be preloaded across all worlds
+     */
+    public static int pendingPreloadChunks() {
+        int count = 0;
+        for (ChunkPreload preload : PRELOADS) {
+            count += preload.chunks.size() - preload.loaded;
+        }
+        return count;
+    }
+
+    /**
+     * @param worldName The world name
+     * @return The initialization timings of the world or null if it was not initialized through the scheduler
+     */
+    public static @Nullable InitTiming timing(@NotNull String worldName) {
+        return TIMINGS.get(worldName);
+    }
+
+    private static void startTickTask() {
+        if (tickTask != null) return;
+        tickTask = Bukkit.getScheduler().runTaskTimer(PolarPaper.getPlugin(), WorldInitScheduler::tick, 0, 1);
+    }
+
+    private static void tick() {
+        long tickStart = System.nanoTime();
+
+        int inits = 0;
+        while (inits < worldInitsPerTick && System.nanoTime() - tickStart < tickBudgetNanos) {
+            InitTask task = QUEUE.poll();
+            if (task == null) break;
+            inits++;
+
+            long initStart = System.nanoTime();
+            try {
+                task.init.run();
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to initialize world '" + task.worldName + "'");
+                ExceptionUtil.log(e);
+            }
+            long initEnd = System.nanoTime();
+            PENDING_INITS.computeIfPresent(task.worldName, (name, count) -> count > 1 ? count - 1 : null);
+
+            // A world can be initialized in several steps (create, then init once built async), add them up
+            TIMINGS.computeIfPresent(task.worldName, (name, prev) -> new InitTiming(
+                    prev.queuedAt,
+                    (initEnd - prev.queuedAt) / 1_000_000,
+                    Math.max(0, prev.initMillis) + (initEnd - initStart) / 1_000_000,
+                    0,
+                    -1
+            ));
+        }
+
+        Iterator<ChunkPreload> iterator = PRELOADS.iterator();
+        while (iterator.hasNext()) {
+            ChunkPreload preload = iterator.next();
+            if (!isInitialized(preload.world)) {
+                // Wait for the world if it is still queued, otherwise it failed or was unloaded
+                if (PENDING_INITS.containsKey(preload.world.getName())) continue;
+                iterator.remove();
+                preload.future.complete(null);
+                continue;
+            }
+
+            if (preload.startedAt == 0) preload.startedAt = System.nanoTime();
+
+            while (preload.next < preload.chunks.size()
+                    && preload.inFlight < preload.maxInFlight
+                    && System.nanoTime() - tickStart < tickBudgetNanos) {
+                long[] chunk = preload.chunks.get(preload.next++);
+                preload.inFlight++;
+                preload.world.getChunkAtAsync((int) chunk[0], (int) chunk[1]).whenComplete((loadedChunk, throwable) -> {
+                    if (loadedChunk != null) loadedChunk.addPluginChunkTicket(PolarPaper.getPlugin());
+                    preload.inFlight--;
+                    preload.loaded++;
+                });
+            }
+
+            if (preload.loaded >= preload.chunks.size()) {
+                long preloadMillis = (System.nanoTime() - preload.startedAt) / 1_000_000;
+                TIMINGS.computeIfPresent(preload.world.getName(), (name, prev) ->
+                        new InitTiming(prev.queuedAt, prev.readyMillis, prev.initMillis, preload.chunks.size(), preloadMillis));
+                iterator.remove();
+                preload.future.complete(null);
+            }
+        }
+
+        if (QUEUE.isEmpty() && PRELOADS.isEmpty() && tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+    }
+
+    private static boolean isInitialized(World world) {
+        ServerLevel serverLevel = ((CraftWorld) world).getHandle();
+        return serverLevel.getServer().getLevel(serverLevel.dimension()) == serverLevel;
+    }
+
+    /**
+     * @param queuedAt When the world was queued (System#nanoTime)
+     * @param readyMillis How long it took from being queued to being initialized, -1 if not initialized yet
+     * @param initMillis How long initialization took on the main thread, -1 if not initialized yet
+     * @param preloadedChunks How many chunks were preloaded
+     * @param preloadMillis How long preloading the spawn area or every chunk took, -1 if not preloaded (yet)
+     */
+    public record InitTiming(long queuedAt, long readyMillis, long initMillis, int preloadedChunks, long preloadMillis) {
+    }
+
+    private record InitTask(String worldName, Runnable init) {
+    }
+
+    private static final class ChunkPreload {
+        private final World world;
+        private final List<long[]> chunks;
+        private final int maxInFlight;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int next = 0;
+        private int inFlight = 0;
+        private int loaded = 0;
+        private long startedAt = 0;
+
+        private ChunkPreload(World world, List<long[]> chunks, int maxInFlight) {
+            this.world = world;
+            this.chunks = chunks;
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package live.minehub.polarpaper.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import live.minehub.polarpaper.*;
+import live.minehub.polarpaper.source.FilePolarSource;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+
+import java.nio.file.Files;
+import java.util.Locale;
+
+public class CompressionCommand {
+
+    protected static int run(CommandContext<CommandSourceStack> ctx) {
+        String worldName = ctx.getArgument("worldname", String.class);
+        String typeString = ctx.getArgument("type", String.class);
+
+        PolarWorld.CompressionType compression;
+        try {
+            compression = PolarWorld.CompressionType.valueOf(typeString.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            ctx.getSource().getSender().sendMessage(Component.text("Invalid compression type '" + typeString + "'", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+
+        // A loaded world keeps saving its own chunks, converting the file underneath it would race autosave
+        if (Bukkit.getWorld(worldName) != null) {
+            ctx.getSource().getSender().sendMessage(Component.text("'" + worldName + "' is loaded, unload it before converting", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+
+        FilePolarSource source = FilePolarSource.defaultFolder(worldName);
+        if (!Files.exists(source.path())) {
+            ctx.getSource().getSender().sendMessage(Component.text("Couldn't find file '" + worldName + ".polar' in the worlds folder", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+
+        ctx.getSource().getSender().sendMessage(
+                Component.text()
+                        .append(Component.text("Converting '", NamedTextColor.GRAY))
+                        .append(Component.text(worldName, NamedTextColor.GRAY))
+                        .append(Component.text("' to ", NamedTextColor.GRAY))
+                        .append(Component.text(compression.name(), NamedTextColor.GRAY))
+                        .append(Component.text("...", NamedTextColor.GRAY))
+        );
+
+        Config config = Config.readFromConfig(PolarPaper.getPlugin().getConfig(), worldName);
+
+        long before = System.nanoTime();
+
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), (task) -> {
+            int oldSize;
+            int newSize;
+            try {
+                byte[] oldBytes = source.readBytes();
+                oldSize = oldBytes.length;
+                PolarWorld polarWorld = PolarReader.read(oldBytes);
+
+                polarWorld.compression(compression);
+                byte[] newBytes = PolarWriter.write(polarWorld, config.saveCompression());
+                newSize = newBytes.length;
+                source.saveBytes(newBytes);
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to convert compression of '" + worldName + ".polar'");
+                ExceptionUtil.log(e);
+                ctx.getSource().getSender().sendMessage(Component.text("Failed to convert '" + worldName + ".polar'", NamedTextColor.RED));
+                return;
+            }
+
+            int ms = (int) ((System.nanoTime() - before) / 1_000_000);
+            ctx.getSource().getSender().sendMessage(
+                    Component.text()
+                            .append(Component.text("Converted '", NamedTextColor.AQUA))
+                            .append(Component.text(worldName, NamedTextColor.AQUA))
+                            .append(Component.text("' to ", NamedTextColor.AQUA))
+                            .append(Component.text(compression.name(), NamedTextColor.AQUA))
+                            .append(Component.text(" in ", NamedTextColor.AQUA))
+                            .append(Component.text(ms, NamedTextColor.AQUA))
+                            .append(Component.text("ms (", NamedTextColor.AQUA))
+                            .append(Component.text(oldSize / 1024, NamedTextColor.AQUA))
+                            .append(Component.text("KB -> ", NamedTextColor.AQUA))
+                            .append(Component.text(newSize / 1024, NamedTextColor.AQUA))
+                            .append(Component.text("KB)", NamedTextColor.AQUA))
+            );
+        });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+}
@@ -0,0 +1,107 @@
+package live.minehub.polarpaper.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import live.minehub.polarpaper.*;
+import live.minehub.polarpaper.schematic.Schematic;
+import live.minehub.polarpaper.schematic.SchematicCache;
+import live.minehub.polarpaper.source.FilePolarSource;
+import live.minehub.polarpaper.userdata.WorldUserData;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.joml.Vector3i;
+
+import java.nio.file.Files;
+
+public class ExtractCommand {
+
+    protected static int run(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        // Being ran from console
+        if (!(sender instanceof Player player)) return Command.SINGLE_SUCCESS;
+
+        String worldName = ctx.getArgument("worldname", String.class);
+        String newWorldName = ctx.getArgument("newworldname", String.class);
+
+        PersistentDataContainer data = player.getPersistentDataContainer();
+        int[] pos1Array = data.get(Schematic.POS_1_KEY, PersistentDataType.INTEGER_ARRAY);
+        int[] pos2Array = data.get(Schematic.POS_2_KEY, PersistentDataType.INTEGER_ARRAY);
+        if (pos1Array == null || pos2Array == null) {
+            player.sendMessage(Component.text("You need to select two corners with the polar wand!", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        BlockSelector blockSelector = BlockSelector.RegionBlockSelector.fromCorners(new Vector3i(pos1Array), new Vector3i(pos2Array));
+
+        FilePolarSource source = FilePolarSource.defaultFolder(worldName);
+        if (!Files.exists(source.path())) {
+            player.sendMessage(Component.text("Couldn't find file '" + worldName + ".polar' in the worlds folder", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+
+        Vector3i schemOffset = player.getLocation().toVector().toVector3i();
+        Config config = Config.readFromConfig(PolarPaper.getPlugin().getConfig(), newWorldName);
+
+        player.sendMessage(
+                Component.text()
+                        .append(Component.text("Extracting the selected region of '", NamedTextColor.GRAY))
+                        .append(Component.text(worldName, NamedTextColor.GRAY))
+                        .append(Component.text("' to '", NamedTextColor.GRAY))
+                        .append(Component.text(newWorldName, NamedTextColor.GRAY))
+                        .append(Component.text("'...", NamedTextColor.GRAY))
+        );
+
+        long before = System.nanoTime();
+
+        // Only the files are touched, the source world doesn't need to be loaded
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), (task) -> {
+            int newSize;
+            try {
+                byte[] worldBytes = PolarCropper.crop(source.readBytes(), blockSelector, WorldUserData.writeSchematicOffset(schemOffset),
+                        PolarDataConverter.DEFAULT, config.saveCompression());
+                newSize = worldBytes.length;
+                FilePolarSource newSource = FilePolarSource.defaultFolder(newWorldName);
+                newSource.saveBytes(worldBytes);
+                SchematicCache.invalidate(newSource.path()); // an older extract with the same name may be cached
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to extract from '" + worldName + ".polar'");
+                ExceptionUtil.log(e);
+                player.sendMessage(Component.text("Failed to extract from '" + worldName + ".polar'", NamedTextColor.RED));
+                return;
+            }
+
+            int ms = (int) ((System.nanoTime() - before) / 1_000_000);
+            player.sendMessage(
+                    Component.text()
+                            .append(Component.text("Extracted '", NamedTextColor.AQUA))
+                            .append(Component.text(newWorldName, NamedTextColor.AQUA))
+                            .append(Component.text("' in ", NamedTextColor.AQUA))
+                            .append(Component.text(ms, NamedTextColor.AQUA))
+                            .append(Component.text("ms (", NamedTextColor.AQUA))
+                            .append(Component.text(newSize / 1024, NamedTextColor.AQUA))
+                            .append(Component.text("KB). ", NamedTextColor.AQUA))
+                            .append(Component.text("\nUse ", NamedTextColor.AQUA))
+                            .append(
+                                    Component.text()
+                                            .append(Component.text("/polar paste ", NamedTextColor.WHITE))
+                                            .append(Component.text(newWorldName, NamedTextColor.WHITE))
+                                            .clickEvent(ClickEvent.runCommand("/polar paste " + newWorldName))
+                                            .hoverEvent(HoverEvent.showText(Component.text("Click to run")))
+                                            .decorate(TextDecoration.UNDERLINED))
+                            .append(Component.text(" to paste it now", NamedTextColor.AQUA))
+            );
+        });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+}
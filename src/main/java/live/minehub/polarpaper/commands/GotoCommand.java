@@ -4,6 +4,7 @@ import com.mojang.brigadier.Command;
 import com.mojang.brigadier.context.CommandContext;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import live.minehub.polarpaper.Config;
+import live.minehub.polarpaper.Polar;
 import live.minehub.polarpaper.PolarPaper;
 import live.minehub.polarpaper.PolarWorld;
 import net.kyori.adventure.text.Component;
@@ -24,6 +25,29 @@ public class GotoCommand {
         if (!(sender instanceof Player player)) return Command.SINGLE_SUCCESS;
 
         World bukkitWorld = Bukkit.getWorld(worldName);
+        if (bukkitWorld == null && Polar.isLazyWorld(worldName)) {
+            sender.sendMessage(
+                    Component.text()
+                            .append(Component.text("Loading '", NamedTextColor.GRAY))
+                            .append(Component.text(worldName, NamedTextColor.GRAY))
+                            .append(Component.text("'...", NamedTextColor.GRAY))
+            );
+
+            Polar.getOrLoadWorld(worldName).thenAccept(world -> {
+                if (world == null) {
+                    sender.sendMessage(
+                            Component.text()
+                                    .append(Component.text("Failed to load world '", NamedTextColor.RED))
+                                    .append(Component.text(worldName, NamedTextColor.RED))
+                                    .append(Component.text("'", NamedTextColor.RED))
+                    );
+                    return;
+                }
+                Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> teleport(player, world));
+            });
+            return Command.SINGLE_SUCCESS;
+        }
+
         if (bukkitWorld == null) {
             sender.sendMessage(
                     Component.text()
@@ -34,6 +58,12 @@ public class GotoCommand {
             return Command.SINGLE_SUCCESS;
         }
 
+        teleport(player, bukkitWorld);
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static void teleport(Player player, World bukkitWorld) {
         Location spawnPos;
 
         PolarWorld polarWorld = PolarWorld.fromWorld(bukkitWorld);
@@ -44,7 +74,7 @@ public class GotoCommand {
             spawnPos = bukkitWorld.getSpawnLocation();
         }
 
-        sender.sendMessage(
+        player.sendMessage(
                 Component.text()
                         .append(Component.text("Teleporting to '", NamedTextColor.AQUA))
                         .append(Component.text(bukkitWorld.getName(), NamedTextColor.AQUA))
@@ -53,8 +83,6 @@ public class GotoCommand {
 
         spawnPos.setWorld(bukkitWorld);
         player.teleportAsync(spawnPos);
-
-        return Command.SINGLE_SUCCESS;
     }
 
 }
@@ -16,6 +16,8 @@ public class HelpCommand {
             .append(Component.text("  Create a blank world\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar createfromregion <new worldname>\n", NamedTextColor.AQUA))
             .append(Component.text("  Create a polar world from the selected region\n", NamedTextColor.GRAY))
+            .append(Component.text("- /polar extract <worldname> <new worldname>\n", NamedTextColor.AQUA))
+            .append(Component.text("  Create a polar world from the selected region of a polar file without loading it\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar goto <worldname>\n", NamedTextColor.AQUA))
             .append(Component.text("  Teleport to a world\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar info [worldname] (or while in a polar world)\n", NamedTextColor.AQUA))
@@ -28,8 +30,18 @@ public class HelpCommand {
             .append(Component.text("  Unload a polar world\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar paste <worldname> [rotation]\n", NamedTextColor.AQUA))
             .append(Component.text("  Place a polar world like a schematic\n", NamedTextColor.GRAY))
+            .append(Component.text("- /polar paste cancel\n", NamedTextColor.AQUA))
+            .append(Component.text("  Stop your running paste\n", NamedTextColor.GRAY))
+            .append(Component.text("- /polar paste benchmark <worldname>\n", NamedTextColor.AQUA))
+            .append(Component.text("  Time pasting a polar world into buffers several times, without changing the world\n", NamedTextColor.GRAY))
+            .append(Component.text("- /polar compression <worldname> <type>\n", NamedTextColor.AQUA))
+            .append(Component.text("  Convert a polar world to another compression type\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar save <worldname>\n", NamedTextColor.AQUA))
             .append(Component.text("  Save the polar world\n", NamedTextColor.GRAY))
+            .append(Component.text("- /polar reset <worldname>\n", NamedTextColor.AQUA))
+            .append(Component.text("  Reset the polar world to its template or the data it was loaded with\n", NamedTextColor.GRAY))
+            .append(Component.text("- /polar pool\n", NamedTextColor.AQUA))
+            .append(Component.text("  Show the world pools and their hits/misses\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar setspawn <worldname> [rounded]\n", NamedTextColor.AQUA))
             .append(Component.text("  Set the spawn of this polar world\n", NamedTextColor.GRAY))
             .append(Component.text("- /polar wand\n", NamedTextColor.AQUA))
@@ -8,6 +8,8 @@ import io.papermc.paper.command.brigadier.CommandSourceStack;
 import live.minehub.polarpaper.Config;
 import live.minehub.polarpaper.PolarPaper;
 import live.minehub.polarpaper.PolarWorld;
+import live.minehub.polarpaper.WorldInitScheduler;
+import live.minehub.polarpaper.schematic.SchematicCache;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
@@ -63,6 +65,8 @@ public class InfoCommand {
 
         Config config = Config.readFromConfig(PolarPaper.getPlugin().getConfig(), bukkitWorld);
 
+        WorldInitScheduler.InitTiming initTiming = WorldInitScheduler.timing(bukkitWorld.getName());
+
         List<NewChunkHolder> chunkHolders = ((ChunkSystemServerLevel) ((CraftWorld) bukkitWorld).getHandle()).moonrise$getChunkTaskScheduler().chunkHolderManager.getChunkHolders();
 
         ctx.getSource().getSender().sendMessage(
@@ -84,10 +88,49 @@ public class InfoCommand {
                         .append(Component.text(config.spawnString(), NamedTextColor.AQUA))
                         .append(Component.newline())
                         .append(Component.text(" Saved Chunks: ", NamedTextColor.AQUA))
-                        .append(Component.text(polarWorld.chunks().size(), NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.chunkCount(), NamedTextColor.AQUA))
+                        .append(Component.newline())
+                        .append(Component.text(" Decoded Chunks: ", NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.residentChunks(), NamedTextColor.AQUA))
+                        .append(Component.text(" (~", NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.residentChunkBytes() / (1024 * 1024), NamedTextColor.AQUA))
+                        .append(Component.text("MB", NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.chunkMemoryBudget() < 0 ? "" : " / " + polarWorld.chunkMemoryBudget() / (1024 * 1024) + "MB", NamedTextColor.AQUA))
+                        .append(Component.text(")", NamedTextColor.AQUA))
+                        .append(Component.newline())
+                        .append(Component.text(" Evicted Chunks: ", NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.evictedChunks(), NamedTextColor.AQUA))
+                        .append(Component.text(" (", NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.chunkEvictions(), NamedTextColor.AQUA))
+                        .append(Component.text(" evictions, ", NamedTextColor.AQUA))
+                        .append(Component.text(polarWorld.chunkReloads(), NamedTextColor.AQUA))
+                        .append(Component.text(" reloads)", NamedTextColor.AQUA))
                         .append(Component.newline())
                         .append(Component.text(" Chunk Holders: ", NamedTextColor.AQUA))
                         .append(Component.text(chunkHolders.size(), NamedTextColor.AQUA))
+                        .append(initTiming == null ? Component.empty() : Component.text()
+                                .append(Component.newline())
+                                .append(Component.text(" Init: ", NamedTextColor.AQUA))
+                                .append(Component.text(initTiming.initMillis(), NamedTextColor.AQUA))
+                                .append(Component.text("ms on main thread, ready after ", NamedTextColor.AQUA))
+                                .append(Component.text(initTiming.readyMillis(), NamedTextColor.AQUA))
+                                .append(Component.text("ms", NamedTextColor.AQUA))
+                                .append(Component.text(initTiming.preloadMillis() < 0 ? "" : ", " + initTiming.preloadedChunks() + " chunks preloaded in " + initTiming.preloadMillis() + "ms", NamedTextColor.AQUA))
+                                .build())
+                        .append(Component.newline())
+                        .append(Component.text(" Init Queue: ", NamedTextColor.AQUA))
+                        .append(Component.text(WorldInitScheduler.queueDepth(), NamedTextColor.AQUA))
+                        .append(Component.text(" worlds, ", NamedTextColor.AQUA))
+                        .append(Component.text(WorldInitScheduler.pendingPreloadChunks(), NamedTextColor.AQUA))
+                        .append(Component.text(" chunks to preload", NamedTextColor.AQUA))
+                        .append(Component.newline())
+                        .append(Component.text(" Schematic Cache: ", NamedTextColor.AQUA))
+                        .append(Component.text(SchematicCache.size(), NamedTextColor.AQUA))
+                        .append(Component.text(" files (", NamedTextColor.AQUA))
+                        .append(Component.text(SchematicCache.hits(), NamedTextColor.AQUA))
+                        .append(Component.text(" hits, ", NamedTextColor.AQUA))
+                        .append(Component.text(SchematicCache.misses(), NamedTextColor.AQUA))
+                        .append(Component.text(" misses)", NamedTextColor.AQUA))
         );
 
         return Command.SINGLE_SUCCESS;
@@ -4,23 +4,36 @@ import com.mojang.brigadier.Command;
 import com.mojang.brigadier.context.CommandContext;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import live.minehub.polarpaper.PolarPaper;
-import live.minehub.polarpaper.PolarReader;
-import live.minehub.polarpaper.PolarWorld;
 import live.minehub.polarpaper.schematic.BlockModifier;
+import live.minehub.polarpaper.schematic.PasteJob;
+import live.minehub.polarpaper.schematic.PreparedSchematic;
 import live.minehub.polarpaper.schematic.Rotation;
 import live.minehub.polarpaper.schematic.Schematic;
-import live.minehub.polarpaper.util.ExceptionUtil;
+import live.minehub.polarpaper.schematic.SchematicCache;
+import live.minehub.polarpaper.source.FilePolarSource;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 public class PasteCommand {
 
+    private static final Map<UUID, PasteJob> JOBS = new HashMap<>();
+    private static final Set<UUID> READING = new HashSet<>();
+    private static final int BENCHMARK_RUNS = 4;
+    // Every run fills a buffer per destination chunk, bigger worlds would take too long to be useful as a benchmark
+    private static final int BENCHMARK_MAX_SECTIONS = 16_384;
+
     protected static int run(CommandContext<CommandSourceStack> ctx) {
         CommandSender sender = ctx.getSource().getSender();
         if (!(sender instanceof Player)) {
@@ -60,36 +73,157 @@ public class PasteCommand {
 
         String worldName = ctx.getArgument("worldname", String.class);
 
-        Path pluginFolder = Path.of(PolarPaper.getPlugin().getDataFolder().getAbsolutePath());
-        Path worldsFolder = pluginFolder.resolve("worlds");
-        Path path = worldsFolder.resolve(worldName + ".polar");
+        FilePolarSource source = schematicSource(player, worldName);
+        if (source == null) return Command.SINGLE_SUCCESS;
 
-        if (!Files.exists(path)) {
-            player.sendMessage(Component.text("Couldn't find file '" + worldName + ".polar' in the worlds folder", NamedTextColor.RED));
+        PasteJob prevJob = JOBS.get(player.getUniqueId());
+        if ((prevJob != null && !prevJob.isDone()) || READING.contains(player.getUniqueId())) {
+            player.sendMessage(Component.text("You already have a paste running, use /polar paste cancel to stop it", NamedTextColor.RED));
             return Command.SINGLE_SUCCESS;
         }
 
-        PolarWorld polarWorld;
-        try {
-            byte[] polarBytes;
-            try {
-                polarBytes = Files.readAllBytes(path);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        BlockModifier.PosRot modifier = new BlockModifier.PosRot(player.getLocation().toVector().toVector3i(), rotation);
+
+        player.sendMessage(
+                Component.text()
+                        .append(Component.text("Reading '", NamedTextColor.GRAY))
+                        .append(Component.text(worldName, NamedTextColor.GRAY))
+                        .append(Component.text("'...", NamedTextColor.GRAY))
+        );
+
+        READING.add(player.getUniqueId());
+        Schematic.pasteAsync(source, player.getWorld(), modifier, Schematic.IgnoreAir.EMPTY_SECTION).thenAccept(job -> {
+            READING.remove(player.getUniqueId());
+            if (job == null) {
+                PolarPaper.logger().warning("Failed to load world '" + worldName + ".polar'");
+                player.sendMessage(Component.text("Failed to load world '" + worldName + ".polar'", NamedTextColor.RED));
+                return;
             }
-            polarWorld = PolarReader.read(polarBytes);
-        } catch (Exception e) {
-            PolarPaper.logger().warning("Failed to load world '" + worldName + ".polar'");
-            player.sendMessage(Component.text("Failed to load world '" + worldName + ".polar'", NamedTextColor.RED));
-            ExceptionUtil.log(e);
-            return Command.SINGLE_SUCCESS;
+
+            JOBS.put(player.getUniqueId(), job);
+
+            player.sendMessage(
+                    Component.text()
+                            .append(Component.text("Pasting '", NamedTextColor.GRAY))
+                            .append(Component.text(worldName, NamedTextColor.GRAY))
+                            .append(Component.text("'...", NamedTextColor.GRAY))
+            );
+
+            job.onProgress(progress -> player.sendActionBar(
+                    Component.text()
+                            .append(Component.text("Pasting: ", NamedTextColor.GRAY))
+                            .append(Component.text((int) (progress.progress() * 100), NamedTextColor.GRAY))
+                            .append(Component.text("%", NamedTextColor.GRAY))
+            ));
+
+            job.future().thenAccept(completed -> {
+                JOBS.remove(player.getUniqueId(), job);
+                if (!completed) return;
+
+                player.sendMessage(
+                        Component.text()
+                                .append(Component.text("Pasted '", NamedTextColor.AQUA))
+                                .append(Component.text(worldName, NamedTextColor.AQUA))
+                                .append(Component.text("' in ", NamedTextColor.AQUA))
+                                .append(Component.text(job.elapsedMillis(), NamedTextColor.AQUA))
+                                .append(Component.text("ms", NamedTextColor.AQUA))
+                );
+            });
+        });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    /**
+     * Pastes a polar world at the player's position into buffers a few times in a row, without changing the world,
+     * and reports how long writing the blocks took each time
+     */
+    protected static int benchmark(CommandContext<CommandSourceStack> ctx) {
+        if (!(ctx.getSource().getSender() instanceof Player player)) return Command.SINGLE_SUCCESS;
+
+        String worldName = ctx.getArgument("worldname", String.class);
+
+        FilePolarSource source = schematicSource(player, worldName);
+        if (source == null) return Command.SINGLE_SUCCESS;
+
+        BlockModifier.PosRot modifier = new BlockModifier.PosRot(player.getLocation().toVector().toVector3i(), Rotation.NONE);
+        World world = player.getWorld();
+
+        SchematicCache.get(source.path()).thenAccept(schematic -> {
+            if (schematic == null) {
+                player.sendMessage(Component.text("Failed to load world '" + worldName + ".polar'", NamedTextColor.RED));
+                return;
+            }
+            if (schematic.sectionCount() > BENCHMARK_MAX_SECTIONS) {
+                player.sendMessage(Component.text("'" + worldName + ".polar' has more than " + BENCHMARK_MAX_SECTIONS + " sections, it is too big to benchmark", NamedTextColor.RED));
+                return;
+            }
+            // Nothing is written into the world, so the runs don't need the main thread
+            Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> benchmark(player, worldName, schematic, world, modifier));
+        });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static void benchmark(Player player, String worldName, PreparedSchematic schematic, World world, BlockModifier.PosRot modifier) {
+        // The first run warms up the JIT
+        StringBuilder runTimes = new StringBuilder();
+        long best = Long.MAX_VALUE;
+        int sections = schematic.sectionCount();
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            long micros = Schematic.benchmarkPaste(schematic, world, modifier, Schematic.IgnoreAir.NONE) / 1_000;
+
+            best = Math.min(best, micros);
+            if (i > 0) runTimes.append(", ");
+            runTimes.append(micros / 1000.0).append("ms");
         }
 
-        BlockModifier modifier = new BlockModifier.PosRot(player.getLocation().toVector().toVector3i(), rotation);
+        player.sendMessage(
+                Component.text()
+                        .append(Component.text("Pasted '", NamedTextColor.AQUA))
+                        .append(Component.text(worldName, NamedTextColor.AQUA))
+                        .append(Component.text("' into buffers ", NamedTextColor.AQUA))
+                        .append(Component.text(BENCHMARK_RUNS, NamedTextColor.AQUA))
+                        .append(Component.text(" times: ", NamedTextColor.AQUA))
+                        .append(Component.text(runTimes.toString(), NamedTextColor.AQUA))
+                        .append(Component.newline())
+                        .append(Component.text("Best: ", NamedTextColor.AQUA))
+                        .append(Component.text(sections == 0 ? 0 : best / sections, NamedTextColor.AQUA))
+                        .append(Component.text("µs per section (", NamedTextColor.AQUA))
+                        .append(Component.text(sections, NamedTextColor.AQUA))
+                        .append(Component.text(" sections)", NamedTextColor.AQUA))
+        );
+    }
 
-        Schematic.paste(polarWorld, player.getWorld(), modifier, Schematic.IgnoreAir.EMPTY_SECTION);
+    protected static int cancel(CommandContext<CommandSourceStack> ctx) {
+        if (!(ctx.getSource().getSender() instanceof Player player)) return Command.SINGLE_SUCCESS;
+
+        PasteJob job = JOBS.remove(player.getUniqueId());
+        if (job == null || job.isDone()) {
+            player.sendMessage(Component.text("You don't have a paste running", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+
+        job.cancel();
+        player.sendMessage(
+                Component.text()
+                        .append(Component.text("Cancelled paste after ", NamedTextColor.AQUA))
+                        .append(Component.text(job.pastedSections(), NamedTextColor.AQUA))
+                        .append(Component.text("/", NamedTextColor.AQUA))
+                        .append(Component.text(job.totalSections(), NamedTextColor.AQUA))
+                        .append(Component.text(" sections", NamedTextColor.AQUA))
+        );
 
         return Command.SINGLE_SUCCESS;
     }
 
+    private static @Nullable FilePolarSource schematicSource(Player player, String worldName) {
+        FilePolarSource source = FilePolarSource.defaultFolder(worldName);
+        if (!Files.exists(source.path())) {
+            player.sendMessage(Component.text("Couldn't find file '" + worldName + ".polar' in the worlds folder", NamedTextColor.RED));
+            return null;
+        }
+        return source;
+    }
+
 }
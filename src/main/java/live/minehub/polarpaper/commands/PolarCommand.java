@@ -5,6 +5,7 @@ import com.mojang.brigadier.arguments.BoolArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import io.papermc.paper.command.brigadier.Commands;
+import live.minehub.polarpaper.Polar;
 import live.minehub.polarpaper.PolarPaper;
 import live.minehub.polarpaper.PolarWorld;
 import net.kyori.adventure.text.Component;
@@ -49,6 +50,10 @@ public class PolarCommand {
 
                                                 builder.suggest(world.getName());
                                             }
+                                            for (String lazyWorld : Polar.getLazyWorlds()) {
+                                                if (Bukkit.getWorld(lazyWorld) != null) continue;
+                                                builder.suggest(lazyWorld);
+                                            }
                                             return builder.buildFuture();
                                         })
                                         .executes(GotoCommand::run)))
@@ -87,6 +92,30 @@ public class PolarCommand {
                                             return builder.buildFuture();
                                         })
                                         .executes(SaveCommand::run)))
+                        .then(Commands.literal("reset")
+                                .requires(source -> source.getSender().hasPermission("polarpaper.reset"))
+                                .executes(ctx -> {
+                                    ctx.getSource().getSender().sendMessage(
+                                            Component.text()
+                                                    .append(Component.text("Usage: /polar reset <worldname>", NamedTextColor.RED))
+                                    );
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                                .then(Commands.argument("worldname", StringArgumentType.string())
+                                        .suggests((ctx, builder) -> {
+                                            for (World world : Bukkit.getWorlds()) {
+                                                PolarWorld polarWorld = PolarWorld.fromWorld(world);
+                                                if (polarWorld == null) continue;
+
+                                                if (world.getName().contains(" ")) {
+                                                    builder.suggest("\"" + world.getName() + "\"");
+                                                } else {
+                                                    builder.suggest(world.getName());
+                                                }
+                                            }
+                                            return builder.buildFuture();
+                                        })
+                                        .executes(ResetCommand::run)))
                         .then(Commands.literal("load")
                                 .requires(source -> source.getSender().hasPermission("polarpaper.load"))
                                 .executes(ctx -> {
@@ -154,6 +183,10 @@ public class PolarCommand {
                                 .requires(source -> source.getSender().hasPermission("polarpaper.list"))
                                 .executes(ListCommand::run)
                         )
+                        .then(Commands.literal("pool")
+                                .requires(source -> source.getSender().hasPermission("polarpaper.pool"))
+                                .executes(PoolCommand::run)
+                        )
                         .then(Commands.literal("convert")
                                     .requires(source -> source.getSender().hasPermission("polarpaper.convert"))
                                     .executes(ctx -> {
@@ -178,6 +211,12 @@ public class PolarCommand {
                                     );
                                     return Command.SINGLE_SUCCESS;
                                 })
+                                .then(Commands.literal("cancel")
+                                        .executes(PasteCommand::cancel))
+                                .then(Commands.literal("benchmark")
+                                        .requires(source -> source.getSender().hasPermission("polarpaper.paste.benchmark"))
+                                        .then(Commands.argument("worldname", StringArgumentType.string())
+                                                .executes(PasteCommand::benchmark)))
                                 .then(Commands.argument("worldname", StringArgumentType.string())
                                         .executes(PasteCommand::run)
                                         .then(Commands.argument("rotation", StringArgumentType.string())
@@ -188,6 +227,24 @@ public class PolarCommand {
                                                     return builder.buildFuture();
                                                 })
                                                 .executes(PasteCommand::runWithRotation))))
+                        .then(Commands.literal("compression")
+                                .requires(source -> source.getSender().hasPermission("polarpaper.compression"))
+                                .executes(ctx -> {
+                                    ctx.getSource().getSender().sendMessage(
+                                            Component.text()
+                                                    .append(Component.text("Usage: /polar compression <worldname> <type> to convert a polar world between compression types", NamedTextColor.RED))
+                                    );
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                                .then(Commands.argument("worldname", StringArgumentType.string())
+                                        .then(Commands.argument("type", StringArgumentType.word())
+                                                .suggests((ctx, builder) -> {
+                                                    for (PolarWorld.CompressionType type : PolarWorld.CompressionType.values()) {
+                                                        builder.suggest(type.name().toLowerCase());
+                                                    }
+                                                    return builder.buildFuture();
+                                                })
+                                                .executes(CompressionCommand::run))))
                         .then(Commands.literal("wand")
                                 .requires(source -> source.getSender().hasPermission("polarpaper.wand"))
                                 .executes(WandCommand::wand))
@@ -211,6 +268,18 @@ public class PolarCommand {
                                 })
                                 .then(Commands.argument("newworldname", StringArgumentType.string())
                                     .executes(CreateFromRegionCommand::run)))
+                        .then(Commands.literal("extract")
+                                .requires(source -> source.getSender().hasPermission("polarpaper.convert"))
+                                .executes(ctx -> {
+                                    ctx.getSource().getSender().sendMessage(
+                                            Component.text()
+                                                    .append(Component.text("Usage: /polar extract <worldname> <new worldname> to create a new polar world from the selected region of a polar file without loading it", NamedTextColor.RED))
+                                    );
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                                .then(Commands.argument("worldname", StringArgumentType.string())
+                                        .then(Commands.argument("newworldname", StringArgumentType.string())
+                                                .executes(ExtractCommand::run))))
                         .build()
         );
     }
@@ -0,0 +1,47 @@
+package live.minehub.polarpaper.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import live.minehub.polarpaper.PolarWorldPool;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+import java.util.Map;
+
+public class PoolCommand {
+
+    protected static int run(CommandContext<CommandSourceStack> ctx) {
+        Map<String, PolarWorldPool.Stats> stats = PolarWorldPool.stats();
+        if (stats.isEmpty()) {
+            ctx.getSource().getSender().sendMessage(Component.text("There are no world pools", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+
+        TextComponent.Builder builder = Component.text();
+
+        builder.append(Component.text("World pools:", NamedTextColor.AQUA));
+
+        for (Map.Entry<String, PolarWorldPool.Stats> entry : stats.entrySet()) {
+            PolarWorldPool.Stats poolStats = entry.getValue();
+            long requests = poolStats.hits() + poolStats.misses();
+            int hitRate = requests == 0 ? 0 : (int) (poolStats.hits() * 100 / requests);
+
+            builder.append(Component.newline());
+            builder.append(Component.text(" - ", NamedTextColor.WHITE));
+            builder.append(Component.text(entry.getKey(), NamedTextColor.WHITE));
+            builder.append(Component.text(": ", NamedTextColor.GRAY));
+            builder.append(Component.text(poolStats.ready() + "/" + poolStats.size() + " ready", NamedTextColor.AQUA));
+            builder.append(Component.text(", " + poolStats.creating() + " creating", NamedTextColor.AQUA));
+            builder.append(Component.text(", " + poolStats.inUse() + " in use", NamedTextColor.AQUA));
+            builder.append(Component.newline());
+            builder.append(Component.text("   " + poolStats.hits() + " hits, " + poolStats.misses() + " misses (" + hitRate + "%), " + poolStats.recycled() + " recycled", NamedTextColor.GRAY));
+        }
+
+        ctx.getSource().getSender().sendMessage(builder);
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+}
@@ -3,8 +3,12 @@ package live.minehub.polarpaper.commands;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.context.CommandContext;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
+import live.minehub.polarpaper.AutoSaveScheduler;
 import live.minehub.polarpaper.Config;
 import live.minehub.polarpaper.Polar;
+import live.minehub.polarpaper.PolarPaper;
+import live.minehub.polarpaper.WorldInitScheduler;
+import live.minehub.polarpaper.schematic.SchematicCache;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
@@ -13,6 +17,11 @@ import org.bukkit.World;
 public class ReloadConfigCommand {
 
     protected static int run(CommandContext<CommandSourceStack> ctx) {
+        PolarPaper.getPlugin().reloadConfig();
+        WorldInitScheduler.loadSettings(PolarPaper.getPlugin().getConfig());
+        AutoSaveScheduler.loadSettings(PolarPaper.getPlugin().getConfig());
+        SchematicCache.loadSettings(PolarPaper.getPlugin().getConfig());
+
         int numWorlds = 0;
         for (World bukkitWorld : Bukkit.getWorlds()) {
             if (!Config.isInConfig(bukkitWorld.getName())) continue;
@@ -0,0 +1,69 @@
+package live.minehub.polarpaper.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import live.minehub.polarpaper.Polar;
+import live.minehub.polarpaper.PolarWorld;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+public class ResetCommand {
+
+    protected static int run(CommandContext<CommandSourceStack> ctx) {
+        String worldName = ctx.getArgument("worldname", String.class);
+
+        World bukkitWorld = Bukkit.getWorld(worldName);
+        if (bukkitWorld == null) {
+            ctx.getSource().getSender().sendMessage(
+                    Component.text()
+                            .append(Component.text("World '", NamedTextColor.RED))
+                            .append(Component.text(worldName, NamedTextColor.RED))
+                            .append(Component.text("' does not exist!", NamedTextColor.RED))
+            );
+            return Command.SINGLE_SUCCESS;
+        }
+
+        PolarWorld polarWorld = PolarWorld.fromWorld(bukkitWorld);
+        if (polarWorld == null) {
+            ctx.getSource().getSender().sendMessage(
+                    Component.text()
+                            .append(Component.text("World '", NamedTextColor.RED))
+                            .append(Component.text(worldName, NamedTextColor.RED))
+                            .append(Component.text("' is not a polar world!", NamedTextColor.RED))
+            );
+            return Command.SINGLE_SUCCESS;
+        }
+
+        if (!polarWorld.canReset()) {
+            ctx.getSource().getSender().sendMessage(
+                    Component.text()
+                            .append(Component.text("World '", NamedTextColor.RED))
+                            .append(Component.text(worldName, NamedTextColor.RED))
+                            .append(Component.text("' has no template or loaded data to reset to!", NamedTextColor.RED))
+            );
+            return Command.SINGLE_SUCCESS;
+        }
+
+        long before = System.nanoTime();
+
+        int resetChunks = Polar.resetWorld(bukkitWorld);
+
+        int ms = (int) ((System.nanoTime() - before) / 1_000_000);
+        ctx.getSource().getSender().sendMessage(
+                Component.text()
+                        .append(Component.text("Reset '", NamedTextColor.AQUA))
+                        .append(Component.text(worldName, NamedTextColor.AQUA))
+                        .append(Component.text("' (", NamedTextColor.AQUA))
+                        .append(Component.text(resetChunks, NamedTextColor.AQUA))
+                        .append(Component.text(" chunks) in ", NamedTextColor.AQUA))
+                        .append(Component.text(ms, NamedTextColor.AQUA))
+                        .append(Component.text("ms", NamedTextColor.AQUA))
+        );
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+}
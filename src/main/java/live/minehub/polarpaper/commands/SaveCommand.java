@@ -7,6 +7,8 @@ import live.minehub.polarpaper.Polar;
 import live.minehub.polarpaper.PolarGenerator;
 import live.minehub.polarpaper.PolarPaper;
 import live.minehub.polarpaper.PolarWorld;
+import live.minehub.polarpaper.schematic.SchematicCache;
+import live.minehub.polarpaper.source.FilePolarSource;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
@@ -54,6 +56,7 @@ public class SaveCommand {
 
         Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), (task) -> {
             Polar.saveWorldToFile(bukkitWorld);
+            SchematicCache.invalidate(FilePolarSource.defaultFolder(worldName).path()); // don't keep the old version around for pastes
 
             int ms = (int) ((System.nanoTime() - before) / 1_000_000);
             ctx.getSource().getSender().sendMessage(
@@ -7,34 +7,28 @@ import org.joml.Vector3d;
 import org.joml.Vector3i;
 
 public interface BlockModifier {
-    void modify(Vector3i pos, BlockState blockState);
+    /**
+     * @param pos The position of the block, changed in place
+     * @return The block state to place
+     */
+    BlockState modify(Vector3i pos, BlockState blockState);
     void modify(Vector3i pos);
     void modifyEntity(Location location);
 
     record PosRot(Vector3i offset, Rotation rotation) implements BlockModifier {
         @Override
-        public void modify(Vector3i pos, BlockState blockState) {
-            if (rotation != Rotation.NONE) {
-                blockState.rotate(rotation.getMcRot());
-                Vector3d vec = new Vector3d(pos);
-                rotatePos(vec, rotation);
-                pos.x = (int) vec.x;
-                pos.y = (int) vec.y;
-                pos.z = (int) vec.z;
-            }
-            pos.add(offset);
+        public BlockState modify(Vector3i pos, BlockState blockState) {
+            modify(pos);
+            return rotation.rotate(blockState);
         }
 
         @Override
         public void modify(Vector3i pos) {
-            if (rotation != Rotation.NONE) {
-                Vector3d vec = new Vector3d(pos);
-                rotatePos(vec, rotation);
-                pos.x = (int) vec.x;
-                pos.y = (int) vec.y;
-                pos.z = (int) vec.z;
-            }
-            pos.add(offset);
+            int x = pos.x;
+            int z = pos.z;
+            pos.x = rotation.rotateX(x, z) + offset.x;
+            pos.y += offset.y;
+            pos.z = rotation.rotateZ(x, z) + offset.z;
         }
 
         @Override
@@ -0,0 +1,391 @@
+package live.minehub.polarpaper.schematic;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import live.minehub.polarpaper.PolarChunk;
+import live.minehub.polarpaper.PolarPaper;
+import live.minehub.polarpaper.PolarSection;
+import live.minehub.polarpaper.userdata.WorldUserData;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.craftbukkit.CraftWorld;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Vector3i;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pastes a polar world into a bukkit world a few sections at a time, chunk by chunk, so a large paste
+ * is spread over as many ticks as needed instead of freezing the server.
+ * Sections pasted in a tick are sent to players and relit together at the end of that tick, which counts against
+ * the tick budget too.
+ * <p>
+ * In parallel mode the sections are instead grouped by the chunk they are pasted into and the blocks of each group are
+ * collected on an async thread, without touching the world. The main thread writes finished chunks into the world
+ * and refreshes them within the tick budget, then spawns the entities chunk by chunk across ticks.
+ * <p>
+ * Should only be used from the main thread
+ */
+public class PasteJob {
+
+    private final World world;
+    private final ServerLevel serverLevel;
+    private final ChunkHolderManager chunkHolderManager;
+    private final SectionLookup.Live sections;
+    private final BlockModifier blockModifier;
+    private final Schematic.IgnoreAir ignoreAir;
+    private final Vector3i offset;
+    private final int minSection;
+
+    private final PreparedSchematic schematic;
+    private final List<PolarChunk> chunks;
+    private int totalSections;
+    private int chunkIndex = 0;
+    private int sectionIndex = 0;
+    private final AtomicInteger pastedSections = new AtomicInteger();
+
+    // Parallel mode
+    private boolean parallel = false;
+    private final Queue<ChunkWork> pendingWork = new ConcurrentLinkedQueue<>();
+    private final Queue<SectionLookup.Buffered> finishedChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private int entityChunkIndex = 0;
+
+    // Measured every tick, so writing stops early enough to leave room for refreshing what was written
+    private long refreshNanosPerSection = 0;
+
+    private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+    private @Nullable Consumer<PasteJob> progressListener = null;
+    private @Nullable BukkitTask task = null;
+    private volatile boolean cancelled = false;
+    private long startedAt = 0;
+    private long finishedAt = 0;
+
+    PasteJob(PreparedSchematic schematic, World world, BlockModifier blockModifier, Schematic.IgnoreAir ignoreAir) {
+        this.world = world;
+        this.serverLevel = ((CraftWorld) world).getHandle();
+        this.chunkHolderManager = serverLevel.moonrise$getChunkTaskScheduler().chunkHolderManager;
+        this.sections = new SectionLookup.Live(chunkHolderManager);
+        this.blockModifier = blockModifier;
+        this.ignoreAir = ignoreAir;
+        this.minSection = world.getMinHeight() / 16;
+
+        Vector3i offset = WorldUserData.readSchematicOffset(schematic.polarWorld().userData());
+        this.offset = offset == null ? new Vector3i() : offset;
+
+        this.schematic = schematic;
+        this.chunks = schematic.chunks();
+        this.totalSections = schematic.sectionCount();
+    }
+
+    /**
+     * Pastes everything in this tick
+     */
+    void runAll() {
+        startedAt = System.nanoTime();
+        process(Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts pasting across ticks
+     *
+     * @param tickBudgetNanos How long the paste may take each tick
+     */
+    void start(long tickBudgetNanos) {
+        startedAt = System.nanoTime();
+        task = Bukkit.getScheduler().runTaskTimer(PolarPaper.getPlugin(), () -> process(tickBudgetNanos), 0, 1);
+    }
+
+    /**
+     * Starts pasting on async threads
+     *
+     * @param posRot The block modifier of this job, only moved and rotated pastes can tell which chunks a section ends up in
+     * @param threads How many threads to paste on
+     * @param tickBudgetNanos How long writing finished chunks into the world may take each tick
+     */
+    void startParallel(BlockModifier.PosRot posRot, int threads, long tickBudgetNanos) {
+        startedAt = System.nanoTime();
+        parallel = true;
+
+        Map<Long, ChunkWork> workByChunk = workByChunk(posRot);
+        int workItems = 0;
+        for (ChunkWork work : workByChunk.values()) {
+            workItems += work.offsets.size();
+        }
+        this.totalSections = workItems;
+        pendingWork.addAll(workByChunk.values());
+
+        int workers = Math.max(1, Math.min(threads, workByChunk.size()));
+        runningWorkers.set(workers);
+        for (int i = 0; i < workers; i++) {
+            Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), t -> runWorker());
+        }
+
+        task = Bukkit.getScheduler().runTaskTimer(PolarPaper.getPlugin(), () -> processParallel(tickBudgetNanos), 1, 1);
+    }
+
+    /**
+     * Pastes into buffers one destination chunk at a time like a parallel paste, without touching the world or
+     * spawning entities. Only the time spent writing blocks is measured, nothing is sent to players or relit.
+     * Can be called from any thread
+     *
+     * @param posRot The block modifier of this job
+     * @return How long writing the blocks took in nanoseconds
+     */
+    long pasteIntoBuffers(BlockModifier.PosRot posRot) {
+        long nanos = 0;
+        for (ChunkWork work : workByChunk(posRot).values()) {
+            SectionLookup.Buffered chunkSections = new SectionLookup.Buffered(work.chunkX, work.chunkZ, serverLevel.getMinSectionY(), serverLevel.getSectionsCount());
+            long before = System.nanoTime();
+            for (int i = 0; i < work.offsets.size(); i++) {
+                int chunkIndex = work.chunkIndices.getInt(i);
+                int sectionIndex = work.sectionIndices.getInt(i);
+                PolarSection section = chunks.get(chunkIndex).sections()[sectionIndex];
+                Schematic.pasteSection(section, schematic.palette(chunkIndex, sectionIndex), chunkSections, blockModifier, work.offsets.get(i), ignoreAir);
+            }
+            nanos += System.nanoTime() - before;
+        }
+        return nanos;
+    }
+
+    // Sections overlapping several chunks are pasted once for each of them, each time only writing into that chunk
+    private Map<Long, ChunkWork> workByChunk(BlockModifier.PosRot posRot) {
+        Map<Long, ChunkWork> workByChunk = new LinkedHashMap<>();
+        for (int chunkIndex = 0; chunkIndex < chunks.size(); chunkIndex++) {
+            PolarChunk chunk = chunks.get(chunkIndex);
+            for (int i = 0; i < chunk.sections().length; i++) {
+                Vector3i blockOffset = sectionOffset(chunk, i);
+                Vector3i destination = Schematic.sectionDestination(posRot, blockOffset);
+
+                for (int chunkX = destination.x >> 4; chunkX <= (destination.x + 15) >> 4; chunkX++) {
+                    for (int chunkZ = destination.z >> 4; chunkZ <= (destination.z + 15) >> 4; chunkZ++) {
+                        ChunkWork work = workByChunk.get(ChunkPos.asLong(chunkX, chunkZ));
+                        if (work == null) {
+                            work = new ChunkWork(chunkX, chunkZ);
+                            workByChunk.put(ChunkPos.asLong(chunkX, chunkZ), work);
+                        }
+                        work.chunkIndices.add(chunkIndex);
+                        work.sectionIndices.add(i);
+                        work.offsets.add(blockOffset);
+                    }
+                }
+            }
+        }
+        return workByChunk;
+    }
+
+    /**
+     * Stops the paste after the current tick, the sections already pasted are kept
+     * In parallel mode the job is done once the chunks being pasted right now are finished
+     */
+    public void cancel() {
+        if (isDone()) return;
+        cancelled = true;
+        if (!parallel) finish();
+    }
+
+    /**
+     * @param listener Called at the end of every tick the job ran in
+     * @return This job
+     */
+    public PasteJob onProgress(@Nullable Consumer<PasteJob> listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    /**
+     * @return CompletableFuture that completes with true once everything is pasted or false if the job was cancelled
+     */
+    public @NotNull CompletableFuture<Boolean> future() {
+        return future;
+    }
+
+    public int totalSections() {
+        return totalSections;
+    }
+
+    public int pastedSections() {
+        return pastedSections.get();
+    }
+
+    /**
+     * @return The fraction of sections that have been pasted, from 0 to 1
+     */
+    public double progress() {
+        if (totalSections == 0) return 1;
+        return (double) pastedSections.get() / totalSections;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * @return How long the job has been running or ran for in milliseconds
+     */
+    public long elapsedMillis() {
+        long end = finishedAt == 0 ? System.nanoTime() : finishedAt;
+        return (end - startedAt) / 1_000_000;
+    }
+
+    private void process(long tickBudgetNanos) {
+        if (isDone()) return;
+
+        long tickStart = System.nanoTime();
+        sections.clear();
+
+        try {
+            while (chunkIndex < chunks.size()) {
+                PolarChunk chunk = chunks.get(chunkIndex);
+
+                if (sectionIndex < chunk.sections().length) {
+                    Vector3i blockOffset = sectionOffset(chunk, sectionIndex);
+                    BlockState[] palette = schematic.palette(chunkIndex, sectionIndex);
+                    Schematic.pasteSection(chunk.sections()[sectionIndex], palette, sections, blockModifier, blockOffset, ignoreAir);
+                    sectionIndex++;
+                    pastedSections.incrementAndGet();
+                } else {
+                    Schematic.handleUserData(world, chunk, schematic.entities(chunkIndex), blockModifier, offset);
+                    chunkIndex++;
+                    sectionIndex = 0;
+                }
+
+                if (overBudget(tickStart, tickBudgetNanos, sections.writtenSections())) break;
+            }
+        } catch (Exception e) {
+            PolarPaper.logger().warning("Failed to paste into '" + world.getName() + "'");
+            ExceptionUtil.log(e);
+            cancelled = true;
+        }
+
+        refresh(sections.takeWrittenBlocks());
+
+        if (progressListener != null) progressListener.accept(this);
+
+        if (cancelled || chunkIndex >= chunks.size()) finish();
+    }
+
+    private void runWorker() {
+        try {
+            ChunkWork work;
+            while (!cancelled && (work = pendingWork.poll()) != null) {
+                SectionLookup.Buffered chunkSections = new SectionLookup.Buffered(work.chunkX, work.chunkZ, serverLevel.getMinSectionY(), serverLevel.getSectionsCount());
+                for (int i = 0; i < work.offsets.size(); i++) {
+                    int chunkIndex = work.chunkIndices.getInt(i);
+                    int sectionIndex = work.sectionIndices.getInt(i);
+                    PolarSection section = chunks.get(chunkIndex).sections()[sectionIndex];
+                    Schematic.pasteSection(section, schematic.palette(chunkIndex, sectionIndex), chunkSections, blockModifier, work.offsets.get(i), ignoreAir);
+                    pastedSections.incrementAndGet();
+                }
+                chunkSections.finish();
+                finishedChunks.add(chunkSections);
+            }
+        } catch (Exception e) {
+            PolarPaper.logger().warning("Failed to paste into '" + world.getName() + "'");
+            ExceptionUtil.log(e);
+            cancelled = true;
+        } finally {
+            runningWorkers.decrementAndGet();
+        }
+    }
+
+    private void processParallel(long tickBudgetNanos) {
+        if (isDone()) return;
+
+        long tickStart = System.nanoTime();
+
+        // Checked before collecting the finished chunks so none finished after the check are missed
+        boolean workersDone = runningWorkers.get() == 0;
+
+        Long2ObjectMap<long[]> writtenBlocks = new Long2ObjectOpenHashMap<>();
+        try {
+            // At least one chunk is written every tick, even if refreshing it alone is estimated to go over budget
+            SectionLookup.Buffered chunkSections;
+            while ((writtenBlocks.isEmpty() || !overBudget(tickStart, tickBudgetNanos, writtenBlocks.size()))
+                    && (chunkSections = finishedChunks.poll()) != null) {
+                writtenBlocks.putAll(chunkSections.apply(chunkHolderManager));
+            }
+        } catch (Exception e) {
+            PolarPaper.logger().warning("Failed to paste into '" + world.getName() + "'");
+            ExceptionUtil.log(e);
+            cancelled = true;
+            finishedChunks.clear();
+        }
+        refresh(writtenBlocks);
+
+        boolean blocksDone = workersDone && finishedChunks.isEmpty();
+        if (blocksDone && !cancelled) {
+            try {
+                while (entityChunkIndex < chunks.size() && System.nanoTime() - tickStart < tickBudgetNanos) {
+                    Schematic.handleUserData(world, chunks.get(entityChunkIndex), schematic.entities(entityChunkIndex), blockModifier, offset);
+                    entityChunkIndex++;
+                }
+            } catch (Exception e) {
+                PolarPaper.logger().warning("Failed to paste entities into '" + world.getName() + "'");
+                ExceptionUtil.log(e);
+                cancelled = true;
+            }
+        }
+
+        if (progressListener != null) progressListener.accept(this);
+
+        if (blocksDone && (cancelled || entityChunkIndex >= chunks.size())) finish();
+    }
+
+    private boolean overBudget(long tickStart, long tickBudgetNanos, int writtenSections) {
+        return System.nanoTime() - tickStart + refreshNanosPerSection * writtenSections >= tickBudgetNanos;
+    }
+
+    private void refresh(Long2ObjectMap<long[]> writtenBlocks) {
+        if (writtenBlocks.isEmpty()) return;
+        long before = System.nanoTime();
+        Schematic.refreshSections(serverLevel, writtenBlocks);
+        refreshNanosPerSection = (System.nanoTime() - before) / writtenBlocks.size();
+    }
+
+    private Vector3i sectionOffset(PolarChunk chunk, int sectionIndex) {
+        return new Vector3i(chunk.x() * 16, (sectionIndex + minSection) * 16, chunk.z() * 16)
+                .sub(offset);
+    }
+
+    private void finish() {
+        if (task != null) task.cancel();
+        finishedAt = System.nanoTime();
+        future.complete(!cancelled);
+    }
+
+    private static final class ChunkWork {
+        private final int chunkX;
+        private final int chunkZ;
+        private final IntList chunkIndices = new IntArrayList();
+        private final IntList sectionIndices = new IntArrayList();
+        private final List<Vector3i> offsets = new ArrayList<>();
+
+        private ChunkWork(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+}
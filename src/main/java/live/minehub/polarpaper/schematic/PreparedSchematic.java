@@ -0,0 +1,97 @@
+package live.minehub.polarpaper.schematic;
+
+import live.minehub.polarpaper.PolarChunk;
+import live.minehub.polarpaper.PolarGenerator;
+import live.minehub.polarpaper.PolarWorld;
+import live.minehub.polarpaper.userdata.EntityUtil;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A polar world ready to be pasted, holding the resolved block palette of every section and the decoded entities
+ * of every chunk so they only have to be worked out once however many times it is pasted.
+ * Palettes and entities are worked out the first time they are needed unless {@link #prepareAll()} is called.
+ * <p>
+ * Can be used from any thread
+ */
+public class PreparedSchematic {
+
+    private final PolarWorld polarWorld;
+    private final List<PolarChunk> chunks;
+    private final int[] firstSections;
+    private final AtomicReferenceArray<BlockState[]> palettes;
+    private final AtomicReferenceArray<List<PolarChunk.Entity>> entities;
+
+    public PreparedSchematic(@NotNull PolarWorld polarWorld) {
+        this.polarWorld = polarWorld;
+        this.chunks = new ArrayList<>(polarWorld.chunks());
+
+        this.firstSections = new int[chunks.size()];
+        int sectionCount = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            firstSections[i] = sectionCount;
+            sectionCount += chunks.get(i).sections().length;
+        }
+
+        this.palettes = new AtomicReferenceArray<>(sectionCount);
+        this.entities = new AtomicReferenceArray<>(chunks.size());
+    }
+
+    /**
+     * Resolves every block palette and decodes every entity now
+     *
+     * @return This schematic
+     */
+    public @NotNull PreparedSchematic prepareAll() {
+        for (int chunkIndex = 0; chunkIndex < chunks.size(); chunkIndex++) {
+            for (int sectionIndex = 0; sectionIndex < chunks.get(chunkIndex).sections().length; sectionIndex++) {
+                palette(chunkIndex, sectionIndex);
+            }
+            entities(chunkIndex);
+        }
+        return this;
+    }
+
+    public @NotNull PolarWorld polarWorld() {
+        return polarWorld;
+    }
+
+    public @NotNull List<PolarChunk> chunks() {
+        return chunks;
+    }
+
+    public int sectionCount() {
+        return palettes.length();
+    }
+
+    /**
+     * @return The resolved block palette of a section, which must not be modified
+     */
+    BlockState[] palette(int chunkIndex, int sectionIndex) {
+        int index = firstSections[chunkIndex] + sectionIndex;
+        BlockState[] palette = palettes.get(index);
+        if (palette == null) {
+            // Resolving twice on different threads gives the same result, so no need to lock
+            palette = PolarGenerator.resolvePalette(chunks.get(chunkIndex).sections()[sectionIndex].blockPalette());
+            palettes.set(index, palette);
+        }
+        return palette;
+    }
+
+    List<PolarChunk.Entity> entities(int chunkIndex) {
+        List<PolarChunk.Entity> chunkEntities = entities.get(chunkIndex);
+        if (chunkEntities == null) {
+            final var bb = ByteBuffer.wrap(chunks.get(chunkIndex).userData());
+            byte version = bb.get();
+            chunkEntities = List.copyOf(EntityUtil.getEntities(bb));
+            entities.set(chunkIndex, chunkEntities);
+        }
+        return chunkEntities;
+    }
+
+}
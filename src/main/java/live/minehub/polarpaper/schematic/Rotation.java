@@ -1,7 +1,12 @@
 package live.minehub.polarpaper.schematic;
 
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public enum Rotation {
     NONE("none", net.minecraft.world.level.block.Rotation.NONE),
     CLOCKWISE_90("90", net.minecraft.world.level.block.Rotation.CLOCKWISE_90),
@@ -11,6 +16,8 @@ public enum Rotation {
     private static final Rotation[] ROTATIONS = values();
     private final String friendlyName;
     private final net.minecraft.world.level.block.Rotation mcRot;
+    // Rotating a block state looks up every one of its properties, so each state is only rotated once
+    private final Map<BlockState, BlockState> rotatedStates = new ConcurrentHashMap<>();
     Rotation(String friendlyName, net.minecraft.world.level.block.Rotation mcRot) {
         this.friendlyName = friendlyName;
         this.mcRot = mcRot;
@@ -32,6 +39,38 @@ public enum Rotation {
         return values()[(ordinal() + rotation.ordinal()) % 4];
     }
 
+    /**
+     * @return The block state rotated by this rotation
+     */
+    public @NotNull BlockState rotate(@NotNull BlockState blockState) {
+        if (this == NONE) return blockState;
+        return rotatedStates.computeIfAbsent(blockState, state -> state.rotate(mcRot));
+    }
+
+    /**
+     * @return The x coordinate of a position rotated around the y axis by this rotation
+     */
+    public int rotateX(int x, int z) {
+        return switch (this) {
+            case NONE -> x;
+            case CLOCKWISE_90 -> -z;
+            case CLOCKWISE_180 -> -x;
+            case CLOCKWISE_270 -> z;
+        };
+    }
+
+    /**
+     * @return The z coordinate of a position rotated around the y axis by this rotation
+     */
+    public int rotateZ(int x, int z) {
+        return switch (this) {
+            case NONE -> z;
+            case CLOCKWISE_90 -> x;
+            case CLOCKWISE_180 -> -z;
+            case CLOCKWISE_270 -> -x;
+        };
+    }
+
     public static @Nullable Rotation fromFriendlyName(String friendlyName) {
         for (Rotation rotation : ROTATIONS) {
             if (rotation.friendlyName.equals(friendlyName)) return rotation;
@@ -1,89 +1,267 @@
 package live.minehub.polarpaper.schematic;
 
-import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
-import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
+import live.minehub.polarpaper.Polar;
 import live.minehub.polarpaper.PolarChunk;
 import live.minehub.polarpaper.PolarPaper;
 import live.minehub.polarpaper.PolarSection;
 import live.minehub.polarpaper.PolarWorld;
+import live.minehub.polarpaper.source.FilePolarSource;
+import live.minehub.polarpaper.source.PolarSource;
 import live.minehub.polarpaper.userdata.EntityUtil;
-import live.minehub.polarpaper.userdata.WorldUserData;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.game.ClientboundSectionBlocksUpdatePacket;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.ChunkPos;
-import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
-import org.bukkit.craftbukkit.CraftWorld;
-import org.bukkit.craftbukkit.block.data.CraftBlockData;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Painting;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Vector3i;
 
-import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class Schematic {
 
     public static final NamespacedKey POS_1_KEY = new NamespacedKey("polarpaper", "pos1");
     public static final NamespacedKey POS_2_KEY = new NamespacedKey("polarpaper", "pos2");
 
-    public static void paste(PolarWorld polarWorld, World world, BlockModifier blockModifier, IgnoreAir ignoreAir) {
-        CraftWorld craftWorld = (CraftWorld) world;
-        ServerLevel serverLevel = craftWorld.getHandle();
-        ChunkHolderManager chunkHolderManager = serverLevel.moonrise$getChunkTaskScheduler().chunkHolderManager;
-
-        byte[] userData = polarWorld.userData();
-        Vector3i offset = WorldUserData.readSchematicOffset(userData);
-        if (offset == null) offset = new Vector3i();
-
-        int minSection = craftWorld.getMinHeight() / 16;
-        for (PolarChunk chunk : polarWorld.chunks()) {
-            int i = 0;
-            for (PolarSection section : chunk.sections()) {
-                Vector3i blockOffset = new Vector3i(chunk.x() * 16, (i + minSection) * 16, chunk.z() * 16)
-                        .sub(offset);
-                pasteSection(section, chunkHolderManager, blockModifier, blockOffset, ignoreAir);
-                i++;
-            }
+    // Past this many written blocks a chunk is resent whole, as sending each block position would take about as much
+    private static final int CHUNK_REFRESH_BLOCKS = 4096;
+
+    /**
+     * Pastes a polar world in one go
+     * Should be called from the main thread
+     *
+     * @return The finished paste job, which can be used to see how long the paste took
+     */
+    public static PasteJob paste(PolarWorld polarWorld, World world, BlockModifier blockModifier, IgnoreAir ignoreAir) {
+        return paste(new PreparedSchematic(polarWorld), world, blockModifier, ignoreAir);
+    }
+
+    public static PasteJob paste(PreparedSchematic schematic, World world, BlockModifier blockModifier, IgnoreAir ignoreAir) {
+        PasteJob job = new PasteJob(schematic, world, blockModifier, ignoreAir);
+        job.runAll();
+        return job;
+    }
+
+    /**
+     * Pastes a polar world across as many ticks as needed, only using up to the budget each tick
+     * Should be called from the main thread
+     *
+     * @param tickBudgetMillis How long the paste may take each tick
+     * @return The paste job, which can be used to follow progress or cancel
+     */
+    public static PasteJob pasteAcrossTicks(PolarWorld polarWorld, World world, BlockModifier blockModifier, IgnoreAir ignoreAir, long tickBudgetMillis) {
+        return pasteAcrossTicks(new PreparedSchematic(polarWorld), world, blockModifier, ignoreAir, tickBudgetMillis);
+    }
+
+    public static PasteJob pasteAcrossTicks(PreparedSchematic schematic, World world, BlockModifier blockModifier, IgnoreAir ignoreAir, long tickBudgetMillis) {
+        PasteJob job = new PasteJob(schematic, world, blockModifier, ignoreAir);
+        job.start(Math.max(1, tickBudgetMillis) * 1_000_000L);
+        return job;
+    }
+
+    /**
+     * Pastes a polar world by filling the blocks of each destination chunk on async threads, each chunk being filled by a single thread.
+     * The finished chunks are written into the world on the main thread within the tick budget, where they are also refreshed
+     * and the entities are spawned.
+     * Should be called from the main thread
+     *
+     * @param threads How many threads the destination chunks are spread across
+     * @param tickBudgetMillis How long writing finished chunks into the world may take each tick
+     * @return The paste job, which can be used to follow progress or cancel
+     */
+    public static PasteJob pasteParallel(PolarWorld polarWorld, World world, BlockModifier.PosRot blockModifier, IgnoreAir ignoreAir, int threads, long tickBudgetMillis) {
+        return pasteParallel(new PreparedSchematic(polarWorld), world, blockModifier, ignoreAir, threads, tickBudgetMillis);
+    }
+
+    public static PasteJob pasteParallel(PreparedSchematic schematic, World world, BlockModifier.PosRot blockModifier, IgnoreAir ignoreAir, int threads, long tickBudgetMillis) {
+        PasteJob job = new PasteJob(schematic, world, blockModifier, ignoreAir);
+        job.startParallel(blockModifier, Math.max(1, threads), Math.max(1, tickBudgetMillis) * 1_000_000L);
+        return job;
+    }
+
+    /**
+     * Measures how long writing the blocks of a paste takes without changing the world.
+     * The blocks are written into buffers like a parallel paste does, so sending and relighting them is not included
+     * and no entities are spawned.
+     * Can be called from any thread
+     *
+     * @return How long writing the blocks took in nanoseconds
+     */
+    public static long benchmarkPaste(PreparedSchematic schematic, World world, BlockModifier.PosRot blockModifier, IgnoreAir ignoreAir) {
+        PasteJob job = new PasteJob(schematic, world, blockModifier, ignoreAir);
+        return job.pasteIntoBuffers(blockModifier);
+    }
+
+    /**
+     * Pastes a polar world using the paste settings of the config, on async threads if settings.pasteThreads is above 0
+     * and the modifier only moves and rotates, otherwise across ticks. Either way the main thread stays within settings.pasteBudgetMillis
+     * Should be called from the main thread
+     *
+     * @return The paste job, which can be used to follow progress or cancel
+     */
+    public static PasteJob pasteWithSettings(PolarWorld polarWorld, World world, BlockModifier blockModifier, IgnoreAir ignoreAir) {
+        return pasteWithSettings(new PreparedSchematic(polarWorld), world, blockModifier, ignoreAir);
+    }
 
-            handleUserData(world, chunk, blockModifier, offset);
+    public static PasteJob pasteWithSettings(PreparedSchematic schematic, World world, BlockModifier blockModifier, IgnoreAir ignoreAir) {
+        FileConfiguration config = PolarPaper.getPlugin().getConfig();
+        int pasteThreads = config.getInt("settings.pasteThreads", 0);
+        long pasteBudgetMillis = config.getLong("settings.pasteBudgetMillis", 10);
+        if (pasteThreads > 0 && blockModifier instanceof BlockModifier.PosRot posRot) {
+            return pasteParallel(schematic, world, posRot, ignoreAir, pasteThreads, pasteBudgetMillis);
         }
+        return pasteAcrossTicks(schematic, world, blockModifier, ignoreAir, pasteBudgetMillis);
+    }
+
+    /**
+     * Reads and decodes a polar world asynchronously, then starts pasting it on the main thread using the paste settings of the config
+     * Files are taken from the {@link SchematicCache} when they haven't changed since they were last read
+     *
+     * @param source The source to read the polar world from
+     * @return CompletableFuture with the started paste job, or null if the source couldn't be read or prepared.
+     * Completes on the main thread, use {@link PasteJob#future()} to wait for the paste to finish
+     */
+    public static CompletableFuture<@Nullable PasteJob> pasteAsync(PolarSource source, World world, BlockModifier blockModifier, IgnoreAir ignoreAir) {
+        CompletableFuture<@Nullable PasteJob> future = new CompletableFuture<>();
 
-        Set<ChunkPos> chunksToRefresh = new HashSet<>();
-        for (PolarChunk chunk : polarWorld.chunks()) {
-            Vector3i chunkOffset = new Vector3i(chunk.x() * 16, 0, chunk.z() * 16)
-                    .sub(offset);
-            blockModifier.modify(chunkOffset);
+        CompletableFuture<@Nullable PreparedSchematic> read = source instanceof FilePolarSource fileSource
+                ? SchematicCache.get(fileSource.path())
+                : Polar.readWorld(source).thenApply(polarWorld -> polarWorld == null ? null : new PreparedSchematic(polarWorld).prepareAll());
 
-            int cX = (int)Math.floor(chunkOffset.x / 16.0);
-            int cZ = (int)Math.floor(chunkOffset.z / 16.0);
+        // Handled either way so the returned future always completes, even if decoding or preparing the schematic threw
+        read.handle((schematic, throwable) -> {
+            if (throwable != null) {
+                PolarPaper.logger().warning("Failed to read schematic to paste into '" + world.getName() + "'");
+                ExceptionUtil.log(throwable);
+            }
 
-            for (int x = -1; x <= 1; x++) {
-                for (int z = -1; z <= 1; z++) {
-                    chunksToRefresh.add(new ChunkPos(cX + x, cZ + z));
+            Bukkit.getScheduler().runTask(PolarPaper.getPlugin(), () -> {
+                if (schematic == null || Bukkit.getWorld(world.getUID()) == null) { // the world may have unloaded while reading
+                    future.complete(null);
+                    return;
+                }
+                try {
+                    future.complete(pasteWithSettings(schematic, world, blockModifier, ignoreAir));
+                } catch (Exception e) {
+                    PolarPaper.logger().warning("Failed to paste into '" + world.getName() + "'");
+                    ExceptionUtil.log(e);
+                    future.complete(null);
                 }
+            });
+            return null;
+        });
+
+        return future;
+    }
+
+    /**
+     * @param offset The position of the section's lowest corner before being modified
+     * @return The lowest corner of the section once it has been moved and rotated
+     */
+    static Vector3i sectionDestination(BlockModifier.PosRot posRot, Vector3i offset) {
+        Rotation rotation = posRot.rotation();
+
+        // The corners of the section might swap when rotated
+        int x1 = rotation.rotateX(offset.x, offset.z);
+        int z1 = rotation.rotateZ(offset.x, offset.z);
+        int x2 = rotation.rotateX(offset.x + 15, offset.z + 15);
+        int z2 = rotation.rotateZ(offset.x + 15, offset.z + 15);
+        return new Vector3i(Math.min(x1, x2), offset.y, Math.min(z1, z2)).add(posRot.offset());
+    }
+
+    /**
+     * Sends the written blocks to players and relights the chunks they are in.
+     * Only the written positions of each section are sent, unless so many blocks of a chunk were written that it is resent whole.
+     * Starlight can only relight whole chunks, but it carries light changes across the edges into the chunks around them
+     * so those don't need to be relit too.
+     *
+     * @param writtenBlocks The written blocks of each section by {@link SectionPos} long, as one bit per block in yzx order
+     */
+    public static void refreshSections(ServerLevel serverLevel, Long2ObjectMap<long[]> writtenBlocks) {
+        if (writtenBlocks.isEmpty()) return;
+
+        Long2IntMap blocksPerChunk = new Long2IntOpenHashMap();
+        for (Long2ObjectMap.Entry<long[]> entry : Long2ObjectMaps.fastIterable(writtenBlocks)) {
+            long sectionPos = entry.getLongKey();
+            int blocks = 0;
+            for (long bits : entry.getValue()) {
+                blocks += Long.bitCount(bits);
+            }
+            blocksPerChunk.mergeInt(ChunkPos.asLong(SectionPos.x(sectionPos), SectionPos.z(sectionPos)), blocks, Integer::sum);
+        }
+
+        Set<ChunkPos> chunksToRelight = new HashSet<>();
+        for (long chunkKey : blocksPerChunk.keySet()) {
+            ChunkPos chunkPos = new ChunkPos(chunkKey);
+            chunksToRelight.add(chunkPos);
+            if (blocksPerChunk.get(chunkKey) > CHUNK_REFRESH_BLOCKS) {
+                serverLevel.getWorld().refreshChunk(chunkPos.x, chunkPos.z);
             }
         }
 
-        // refresh blocks and light
-        for (ChunkPos c : chunksToRefresh) {
-            world.refreshChunk(c.x, c.z);
+        for (Long2ObjectMap.Entry<long[]> entry : Long2ObjectMaps.fastIterable(writtenBlocks)) {
+            long sectionPos = entry.getLongKey();
+            int chunkX = SectionPos.x(sectionPos);
+            int chunkZ = SectionPos.z(sectionPos);
+            if (blocksPerChunk.get(ChunkPos.asLong(chunkX, chunkZ)) > CHUNK_REFRESH_BLOCKS) continue;
+
+            LevelChunk chunk = serverLevel.getChunkIfLoaded(chunkX, chunkZ);
+            if (chunk == null) continue;
+            LevelChunkSection section = chunk.getSection(SectionPos.y(sectionPos) - chunk.getMinSectionY());
+
+            List<ServerPlayer> players = serverLevel.getChunkSource().chunkMap.getPlayers(new ChunkPos(chunkX, chunkZ), false);
+            if (players.isEmpty()) continue;
+
+            ShortSet positions = writtenPositions(entry.getValue());
+            if (positions.isEmpty()) continue;
+            ClientboundSectionBlocksUpdatePacket packet = new ClientboundSectionBlocksUpdatePacket(SectionPos.of(sectionPos), positions, section);
+            for (ServerPlayer player : players) {
+                player.connection.send(packet);
+            }
         }
-        serverLevel.getChunkSource().getLightEngine().starlight$serverRelightChunks(chunksToRefresh, a -> {}, a -> {});
+
+        // light changes are sent to players by the light engine itself
+        serverLevel.getChunkSource().getLightEngine().starlight$serverRelightChunks(chunksToRelight, a -> {}, a -> {});
     }
 
-    private static void handleUserData(World world, PolarChunk chunk, BlockModifier blockModifier, Vector3i offset) {
-        final var bb = ByteBuffer.wrap(chunk.userData());
-        byte version = bb.get();
-        List<PolarChunk.Entity> entities = EntityUtil.getEntities(bb);
+    // Positions are packed the same way as SectionPos#sectionRelativePos
+    private static ShortSet writtenPositions(long[] written) {
+        ShortSet positions = new ShortOpenHashSet();
+        for (int word = 0; word < written.length; word++) {
+            long bits = written[word];
+            while (bits != 0) {
+                int index = (word << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int x = index & 15;
+                int y = index >> 8;
+                int z = (index >> 4) & 15;
+                positions.add((short) ((x << 8) | (z << 4) | y));
+            }
+        }
+        return positions;
+    }
 
+    static void handleUserData(World world, PolarChunk chunk, List<PolarChunk.Entity> entities, BlockModifier blockModifier, Vector3i offset) {
         for (PolarChunk.Entity polarEntity : entities) {
             var x = polarEntity.x();
             var y = polarEntity.y();
@@ -112,78 +290,134 @@ public class Schematic {
         }
     }
 
-    private static void pasteSection(PolarSection polarSection, ChunkHolderManager chunkHolderManager, BlockModifier blockModifier, Vector3i offset, IgnoreAir ignoreAir) {
+    /**
+     * @param materialPalette The resolved block palette of the section, which is not modified
+     */
+    static void pasteSection(PolarSection polarSection, BlockState[] materialPalette, SectionLookup sections, BlockModifier blockModifier, Vector3i offset, IgnoreAir ignoreAir) {
         // Blocks
         int[] blockData = polarSection.blockData();
 
-        String[] rawBlockPalette = polarSection.blockPalette();
-        BlockState[] materialPalette = new BlockState[rawBlockPalette.length];
-        for (int i = 0; i < rawBlockPalette.length; i++) {
-            try {
-                materialPalette[i] = ((CraftBlockData) Bukkit.getServer().createBlockData(rawBlockPalette[i])).getState();
-            } catch (IllegalArgumentException e) {
-                PolarPaper.logger().warning("Failed to parse block state: " + rawBlockPalette[i]);
-                materialPalette[i] = Blocks.AIR.defaultBlockState();
+        if (materialPalette.length <= 1) {
+            BlockState blockState = materialPalette[0];
+            if (blockState.isAir() && (ignoreAir == IgnoreAir.ALL || ignoreAir == IgnoreAir.EMPTY_SECTION)) return;
+        }
+
+        if (blockModifier instanceof BlockModifier.PosRot posRot) {
+            pasteSectionRotated(materialPalette, blockData, sections, posRot, offset, ignoreAir);
+            return;
+        }
+
+        // Any other modifier can move blocks anywhere, so blocks are visited in the order they are stored
+        Vector3i blockPos = new Vector3i();
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BlockState blockState = blockData == null ? materialPalette[0] : materialPalette[blockData[(y << 8) | (z << 4) | x]];
+                    if (ignoreAir == IgnoreAir.ALL && blockState.isAir()) continue;
+
+                    blockPos.set(offset.x + x, offset.y + y, offset.z + z);
+                    blockState = blockModifier.modify(blockPos, blockState);
+
+                    if (!sections.select(blockPos.x >> 4, blockPos.y >> 4, blockPos.z >> 4)) continue;
+                    sections.set(blockPos.x & 15, blockPos.y & 15, blockPos.z & 15, blockState);
+                }
             }
         }
+    }
 
-        if (rawBlockPalette.length <= 1) {
-            BlockState blockState = materialPalette[0];
-            if (blockState.isAir() && (ignoreAir == IgnoreAir.ALL || ignoreAir == IgnoreAir.EMPTY_SECTION)) return;
+    /**
+     * Pastes a section that is moved and rotated around the y axis, which keeps it a 16x16x16 box.
+     * The palette is rotated once, then the section is either swapped in whole when it lines up exactly with
+     * a section of the world, or the up to 8 world sections it overlaps are walked so each of them is looked up once.
+     */
+    private static void pasteSectionRotated(BlockState[] materialPalette, int[] blockData, SectionLookup sections, BlockModifier.PosRot posRot, Vector3i offset, IgnoreAir ignoreAir) {
+        Rotation rotation = posRot.rotation();
+        if (rotation != Rotation.NONE) {
+            BlockState[] rotatedPalette = new BlockState[materialPalette.length];
+            for (int i = 0; i < materialPalette.length; i++) {
+                rotatedPalette[i] = rotation.rotate(materialPalette[i]);
+            }
+            materialPalette = rotatedPalette;
+        }
 
-            for (int y = 0; y < 16; y++) {
-                for (int z = 0; z < 16; z++) {
-                    for (int x = 0; x < 16; x++) {
-                        Vector3i blockPos = new Vector3i(x, y, z);
-                        blockPos.add(offset);
-                        blockModifier.modify(blockPos, blockState);
+        Vector3i destination = sectionDestination(posRot, offset);
+        int destX = destination.x;
+        int destY = destination.y;
+        int destZ = destination.z;
 
-                        setBlockFast(chunkHolderManager, blockPos.x, blockPos.y, blockPos.z, blockState);
+        SectionIndexTransform transform = SectionIndexTransform.of(rotation);
+
+        // Air must not replace what is already there when ignoring all air, so that always goes block by block
+        if (((destX | destY | destZ) & 15) == 0 && ignoreAir != IgnoreAir.ALL) {
+            // blocks outside of loaded chunks or the world height would be skipped one by one too
+            if (!sections.select(destX >> 4, destY >> 4, destZ >> 4)) return;
+
+            int[] destData = blockData;
+            if (blockData != null && rotation != Rotation.NONE) {
+                destData = new int[blockData.length];
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        for (int x = 0; x < 16; x++) {
+                            destData[(y << 8) | (z << 4) | x] = blockData[transform.sourceIndex(x, y, z)];
+                        }
                     }
                 }
             }
-        } else {
-            int blockIndex = 0;
-            for (int y = 0; y < 16; y++) {
-                for (int z = 0; z < 16; z++) {
-                    for (int x = 0; x < 16; x++) {
-                        BlockState blockState = materialPalette[blockData[blockIndex++]];
-                        if (ignoreAir == IgnoreAir.ALL && blockState.isAir()) continue;
-
-                        Vector3i blockPos = new Vector3i(x, y, z);
-                        blockPos.add(offset);
-                        blockModifier.modify(blockPos, blockState);
-
-                        setBlockFast(chunkHolderManager, blockPos.x, blockPos.y, blockPos.z, blockState);
+
+            sections.setAll(materialPalette, destData);
+            return;
+        }
+
+        for (int chunkX = destX >> 4; chunkX <= (destX + 15) >> 4; chunkX++) {
+            for (int chunkZ = destZ >> 4; chunkZ <= (destZ + 15) >> 4; chunkZ++) {
+                for (int sectionY = destY >> 4; sectionY <= (destY + 15) >> 4; sectionY++) {
+                    if (!sections.select(chunkX, sectionY, chunkZ)) continue;
+
+                    int minX = Math.max(destX, chunkX << 4);
+                    int maxX = Math.min(destX + 16, (chunkX << 4) + 16);
+                    int minY = Math.max(destY, sectionY << 4);
+                    int maxY = Math.min(destY + 16, (sectionY << 4) + 16);
+                    int minZ = Math.max(destZ, chunkZ << 4);
+                    int maxZ = Math.min(destZ + 16, (chunkZ << 4) + 16);
+
+                    for (int y = minY; y < maxY; y++) {
+                        for (int z = minZ; z < maxZ; z++) {
+                            for (int x = minX; x < maxX; x++) {
+                                BlockState blockState = blockData == null ? materialPalette[0] : materialPalette[blockData[transform.sourceIndex(x - destX, y - destY, z - destZ)]];
+                                if (ignoreAir == IgnoreAir.ALL && blockState.isAir()) continue;
+
+                                sections.set(x & 15, y & 15, z & 15, blockState);
+                            }
+                        }
                     }
                 }
             }
         }
     }
 
-    private static void setBlockFast(ChunkHolderManager chunkHolderManager, int x, int y, int z, BlockState blockState) {
-        int chunkX = (int)Math.floor(x / 16.0);
-        int chunkZ = (int)Math.floor(z / 16.0);
-        int section = (int)Math.floor(y / 16.0);
+    /**
+     * Finds where a block of a rotated section is stored in the original section.
+     * For a block at x, y, z relative to the lowest corner of the rotated section, the index is
+     * {@code base + x * stepX + z * stepZ + y * 256}. A mirror can be described the same way.
+     */
+    private record SectionIndexTransform(int base, int stepX, int stepZ) {
+        private static final SectionIndexTransform NONE = new SectionIndexTransform(0, 1, 16);
+        private static final SectionIndexTransform CLOCKWISE_90 = new SectionIndexTransform(15 * 16, -16, 1);
+        private static final SectionIndexTransform CLOCKWISE_180 = new SectionIndexTransform(15 * 16 + 15, -1, -16);
+        private static final SectionIndexTransform CLOCKWISE_270 = new SectionIndexTransform(15, 16, -1);
 
-        NewChunkHolder chunkHolder = chunkHolderManager.getChunkHolder(chunkX, chunkZ);
-        if (chunkHolder == null) return;
-        ChunkAccess chunkAccess = chunkHolder.getCurrentChunk();
-        if (chunkAccess == null) return;
-
-        int sectionI = section - chunkAccess.getMinSectionY();
-        if (sectionI >= chunkAccess.getSections().length) return;
-        if (sectionI < 0) return;
-
-        LevelChunkSection levelChunkSection = chunkAccess.getSection(sectionI);
-        int newBlockX = x % 16;
-        if (newBlockX < 0) newBlockX = 16 + newBlockX;
-        int newBlockY = y % 16;
-        if (newBlockY < 0) newBlockY = 16 + newBlockY;
-        int newBlockZ = z % 16;
-        if (newBlockZ < 0) newBlockZ = 16 + newBlockZ;
+        static SectionIndexTransform of(Rotation rotation) {
+            return switch (rotation) {
+                case NONE -> NONE;
+                case CLOCKWISE_90 -> CLOCKWISE_90;
+                case CLOCKWISE_180 -> CLOCKWISE_180;
+                case CLOCKWISE_270 -> CLOCKWISE_270;
+            };
+        }
 
-        levelChunkSection.setBlockState(newBlockX, newBlockY, newBlockZ, blockState);
+        int sourceIndex(int x, int y, int z) {
+            return base + x * stepX + z * stepZ + (y << 8);
+        }
     }
 
     public enum IgnoreAir {
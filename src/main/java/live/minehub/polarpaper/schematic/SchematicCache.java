@@ -0,0 +1,133 @@
+package live.minehub.polarpaper.schematic;
+
+import live.minehub.polarpaper.PolarPaper;
+import live.minehub.polarpaper.PolarReader;
+import live.minehub.polarpaper.PolarWorld;
+import live.minehub.polarpaper.util.ExceptionUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the most recently pasted polar files in memory as {@link PreparedSchematic}s, so pasting the same file again
+ * skips reading, decoding and resolving palettes.
+ * Files are keyed by their path and read again when their modification time changes.
+ * Once more files are cached than settings.schematicCacheSize the least recently pasted is dropped.
+ */
+public class SchematicCache {
+
+    // Access ordered, so the first entry is always the least recently used
+    private static final Map<Path, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static volatile int maxEntries = 8;
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private SchematicCache() {
+
+    }
+
+    /**
+     * Reads the cache settings from the settings section of the config
+     */
+    public static void loadSettings(@NotNull FileConfiguration config) {
+        maxEntries = Math.max(0, config.getInt("settings.schematicCacheSize", 8));
+        synchronized (ENTRIES) {
+            evict();
+        }
+    }
+
+    /**
+     * Gets a polar file from the cache, or reads and prepares it asynchronously if it isn't cached or has changed
+     *
+     * @param path The path of the polar file
+     * @return CompletableFuture with the prepared schematic, or null if the file couldn't be read
+     */
+    public static CompletableFuture<@Nullable PreparedSchematic> get(@NotNull Path path) {
+        CompletableFuture<@Nullable PreparedSchematic> future = new CompletableFuture<>();
+
+        Bukkit.getAsyncScheduler().runNow(PolarPaper.getPlugin(), task -> {
+            try {
+                Path key = path.toAbsolutePath().normalize();
+                FileTime modified = Files.getLastModifiedTime(key);
+
+                synchronized (ENTRIES) {
+                    Entry entry = ENTRIES.get(key);
+                    if (entry != null && entry.modified.equals(modified)) {
+                        hits++;
+                        future.complete(entry.schematic);
+                        return;
+                    }
+                    misses++;
+                }
+
+                PolarWorld polarWorld = PolarReader.read(Files.readAllBytes(key));
+                PreparedSchematic schematic = new PreparedSchematic(polarWorld).prepareAll();
+
+                synchronized (ENTRIES) {
+                    if (maxEntries > 0) {
+                        ENTRIES.put(key, new Entry(modified, schematic));
+                        evict();
+                    }
+                }
+
+                future.complete(schematic);
+            } catch (Exception e) {
+                ExceptionUtil.log(e);
+                future.complete(null);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Drops a polar file from the cache
+     */
+    public static void invalidate(@NotNull Path path) {
+        synchronized (ENTRIES) {
+            ENTRIES.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    public static int size() {
+        synchronized (ENTRIES) {
+            return ENTRIES.size();
+        }
+    }
+
+    public static long hits() {
+        synchronized (ENTRIES) {
+            return hits;
+        }
+    }
+
+    public static long misses() {
+        synchronized (ENTRIES) {
+            return misses;
+        }
+    }
+
+    // Called while synchronized
+    private static void evict() {
+        Iterator<Entry> iterator = ENTRIES.values().iterator();
+        while (ENTRIES.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record Entry(FileTime modified, PreparedSchematic schematic) {
+
+    }
+
+}
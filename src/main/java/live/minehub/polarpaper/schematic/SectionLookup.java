@@ -0,0 +1,290 @@
+package live.minehub.polarpaper.schematic;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import live.minehub.polarpaper.PolarGenerator;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Where a paste writes its blocks. A section is selected by its section coordinates and blocks are then written
+ * into it relative to its lowest corner. The last selected section is remembered so blocks landing in the same
+ * section don't look up their chunk again.
+ */
+abstract class SectionLookup {
+
+    // Written blocks are kept as one bit per block of a section in yzx order
+    static final int WRITTEN_WORDS = 16 * 16 * 16 / 64;
+
+    private boolean cached = false;
+    private int chunkX;
+    private int sectionY;
+    private int chunkZ;
+    private boolean selected = false;
+
+    /**
+     * Forgets the remembered section, should be called whenever chunks might have loaded or unloaded since the last lookup
+     */
+    void clear() {
+        cached = false;
+        selected = false;
+    }
+
+    /**
+     * Selects the section at the section coordinates for the following writes
+     *
+     * @return Whether the section can be written to, false if its chunk isn't loaded, isn't a chunk this lookup
+     * writes into or it is outside the world height
+     */
+    boolean select(int chunkX, int sectionY, int chunkZ) {
+        if (cached && chunkX == this.chunkX && sectionY == this.sectionY && chunkZ == this.chunkZ) return selected;
+
+        this.cached = true;
+        this.chunkX = chunkX;
+        this.sectionY = sectionY;
+        this.chunkZ = chunkZ;
+        this.selected = lookup(chunkX, sectionY, chunkZ);
+        return selected;
+    }
+
+    protected abstract boolean lookup(int chunkX, int sectionY, int chunkZ);
+
+    /**
+     * Sets a block of the selected section
+     */
+    abstract void set(int x, int y, int z, BlockState blockState);
+
+    /**
+     * Replaces every block of the selected section
+     *
+     * @param blockData The palette index of every block in yzx order, or null if the palette has a single entry
+     */
+    abstract void setAll(BlockState[] materialPalette, int @Nullable [] blockData);
+
+    /**
+     * Writes straight into the loaded chunks of a world.
+     * Chunks are marked unsaved as soon as one of their sections is selected, and the written blocks are remembered
+     * so only those need to be sent to players.
+     * Should only be used from the main thread
+     */
+    static final class Live extends SectionLookup {
+
+        private final ChunkHolderManager chunkHolderManager;
+        private @Nullable LevelChunkSection section = null;
+        private long @Nullable [] written = null;
+        private Long2ObjectMap<long[]> writtenBlocks = new Long2ObjectOpenHashMap<>();
+
+        Live(ChunkHolderManager chunkHolderManager) {
+            this.chunkHolderManager = chunkHolderManager;
+        }
+
+        /**
+         * @return The blocks written since the last call, by {@link SectionPos} long
+         * @see Schematic#refreshSections(ServerLevel, Long2ObjectMap)
+         */
+        Long2ObjectMap<long[]> takeWrittenBlocks() {
+            Long2ObjectMap<long[]> taken = writtenBlocks;
+            writtenBlocks = new Long2ObjectOpenHashMap<>();
+            clear(); // the written bits of the selected section now belong to the taken map
+            return taken;
+        }
+
+        /**
+         * @return How many sections were written to since the last {@link #takeWrittenBlocks()}
+         */
+        int writtenSections() {
+            return writtenBlocks.size();
+        }
+
+        @Override
+        protected boolean lookup(int chunkX, int sectionY, int chunkZ) {
+            section = null;
+            written = null;
+
+            NewChunkHolder chunkHolder = chunkHolderManager.getChunkHolder(chunkX, chunkZ);
+            if (chunkHolder == null) return false;
+            ChunkAccess chunkAccess = chunkHolder.getCurrentChunk();
+            if (chunkAccess == null) return false;
+
+            int sectionI = sectionY - chunkAccess.getMinSectionY();
+            if (sectionI >= chunkAccess.getSections().length) return false;
+            if (sectionI < 0) return false;
+
+            chunkAccess.markUnsaved();
+            written = writtenBlocks.computeIfAbsent(SectionPos.asLong(chunkX, sectionY, chunkZ), k -> new long[WRITTEN_WORDS]);
+            section = chunkAccess.getSection(sectionI);
+            return true;
+        }
+
+        @Override
+        void set(int x, int y, int z, BlockState blockState) {
+            if (section == null || written == null) return;
+            section.setBlockState(x, y, z, blockState, false);
+            int index = (y << 8) | (z << 4) | x;
+            written[index >> 6] |= 1L << index;
+        }
+
+        @Override
+        void setAll(BlockState[] materialPalette, int @Nullable [] blockData) {
+            if (section == null || written == null) return;
+            PolarGenerator.setSectionBlocks(section, materialPalette, blockData);
+            Arrays.fill(written, -1L);
+        }
+    }
+
+    /**
+     * Collects the blocks written into a single chunk without touching the world, so it can be filled on any thread.
+     * Once filled, {@link #finish()} turns the sections that were written whole into their final palette and data on
+     * the same thread, and {@link #apply(ChunkHolderManager)} then writes everything into the world on the main thread.
+     */
+    static final class Buffered extends SectionLookup {
+
+        private final int onlyChunkX;
+        private final int onlyChunkZ;
+        private final int minSectionY;
+        private final BufferedSection[] sections;
+        private @Nullable BufferedSection section = null;
+
+        Buffered(int onlyChunkX, int onlyChunkZ, int minSectionY, int sectionCount) {
+            this.onlyChunkX = onlyChunkX;
+            this.onlyChunkZ = onlyChunkZ;
+            this.minSectionY = minSectionY;
+            this.sections = new BufferedSection[sectionCount];
+        }
+
+        @Override
+        protected boolean lookup(int chunkX, int sectionY, int chunkZ) {
+            section = null;
+            if (chunkX != onlyChunkX || chunkZ != onlyChunkZ) return false;
+
+            int sectionI = sectionY - minSectionY;
+            if (sectionI >= sections.length) return false;
+            if (sectionI < 0) return false;
+
+            if (sections[sectionI] == null) sections[sectionI] = new BufferedSection(sectionY);
+            section = sections[sectionI];
+            return true;
+        }
+
+        @Override
+        void set(int x, int y, int z, BlockState blockState) {
+            if (section == null) return;
+            int index = (y << 8) | (z << 4) | x;
+            section.blocks[index] = blockState;
+            section.written[index >> 6] |= 1L << index;
+        }
+
+        @Override
+        void setAll(BlockState[] materialPalette, int @Nullable [] blockData) {
+            if (section == null) return;
+            if (blockData == null) {
+                Arrays.fill(section.blocks, materialPalette[0]);
+            } else {
+                for (int i = 0; i < section.blocks.length; i++) {
+                    section.blocks[i] = materialPalette[blockData[i]];
+                }
+            }
+            Arrays.fill(section.written, -1L);
+        }
+
+        /**
+         * Builds the palette and data of every section that was written whole, so the main thread only has to swap them in
+         */
+        void finish() {
+            for (BufferedSection bufferedSection : sections) {
+                if (bufferedSection == null || !bufferedSection.isWhole()) continue;
+
+                Reference2IntMap<BlockState> paletteIndices = new Reference2IntOpenHashMap<>();
+                List<BlockState> palette = new ArrayList<>();
+                int[] blockData = new int[bufferedSection.blocks.length];
+                for (int i = 0; i < blockData.length; i++) {
+                    BlockState blockState = bufferedSection.blocks[i];
+                    int paletteIndex = paletteIndices.getOrDefault(blockState, -1);
+                    if (paletteIndex == -1) {
+                        paletteIndex = palette.size();
+                        paletteIndices.put(blockState, paletteIndex);
+                        palette.add(blockState);
+                    }
+                    blockData[i] = paletteIndex;
+                }
+
+                bufferedSection.palette = palette.toArray(BlockState[]::new);
+                bufferedSection.blockData = palette.size() == 1 ? null : blockData;
+            }
+        }
+
+        /**
+         * Writes the collected blocks into the chunk, which is marked unsaved.
+         * Should be called from the main thread
+         *
+         * @return The written blocks by {@link SectionPos} long, empty if the chunk isn't loaded anymore
+         * @see Schematic#refreshSections(ServerLevel, Long2ObjectMap)
+         */
+        Long2ObjectMap<long[]> apply(ChunkHolderManager chunkHolderManager) {
+            Long2ObjectMap<long[]> writtenBlocks = new Long2ObjectOpenHashMap<>();
+
+            NewChunkHolder chunkHolder = chunkHolderManager.getChunkHolder(onlyChunkX, onlyChunkZ);
+            if (chunkHolder == null) return writtenBlocks;
+            ChunkAccess chunkAccess = chunkHolder.getCurrentChunk();
+            if (chunkAccess == null) return writtenBlocks;
+
+            for (BufferedSection bufferedSection : sections) {
+                if (bufferedSection == null) continue;
+
+                int sectionI = bufferedSection.sectionY - chunkAccess.getMinSectionY();
+                if (sectionI < 0 || sectionI >= chunkAccess.getSections().length) continue;
+                LevelChunkSection levelSection = chunkAccess.getSection(sectionI);
+
+                if (bufferedSection.palette != null) {
+                    PolarGenerator.setSectionBlocks(levelSection, bufferedSection.palette, bufferedSection.blockData);
+                } else {
+                    for (int word = 0; word < bufferedSection.written.length; word++) {
+                        long bits = bufferedSection.written[word];
+                        while (bits != 0) {
+                            int index = (word << 6) | Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            levelSection.setBlockState(index & 15, index >> 8, (index >> 4) & 15, bufferedSection.blocks[index], false);
+                        }
+                    }
+                }
+
+                writtenBlocks.put(SectionPos.asLong(onlyChunkX, bufferedSection.sectionY, onlyChunkZ), bufferedSection.written);
+            }
+
+            if (!writtenBlocks.isEmpty()) chunkAccess.markUnsaved();
+            return writtenBlocks;
+        }
+
+        private static final class BufferedSection {
+            private final int sectionY;
+            private final BlockState[] blocks = new BlockState[16 * 16 * 16];
+            private final long[] written = new long[WRITTEN_WORDS];
+            private BlockState @Nullable [] palette = null;
+            private int @Nullable [] blockData = null;
+
+            private BufferedSection(int sectionY) {
+                this.sectionY = sectionY;
+            }
+
+            private boolean isWhole() {
+                for (long bits : written) {
+                    if (bits != -1L) return false;
+                }
+                return true;
+            }
+        }
+    }
+
+}
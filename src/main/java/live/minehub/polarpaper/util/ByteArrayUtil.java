@@ -9,6 +9,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 public class ByteArrayUtil {
@@ -16,27 +17,24 @@ public class ByteArrayUtil {
     public static byte[] getByteArray(ByteBuffer bb) {
         int packedLength = getVarInt(bb);
         byte[] bytes = new byte[packedLength];
-        for (int i = 0; i < packedLength; i++) {
-            bytes[i] = bb.get();
-        }
+        bb.get(bytes);
         return bytes;
     }
 
     public static byte[] getByteArray(ByteBuf bb) {
         int packedLength = getVarInt(bb);
         byte[] bytes = new byte[packedLength];
-        for (int i = 0; i < packedLength; i++) {
-            bytes[i] = bb.readByte();
-        }
+        bb.readBytes(bytes);
         return bytes;
     }
 
     public static long[] getLongArray(ByteBuf bb) {
         int packedLength = getVarInt(bb);
         long[] longs = new long[packedLength];
-        for (int i = 0; i < packedLength; i++) {
-            longs[i] = bb.readLong();
-        }
+        int byteLength = packedLength * Long.BYTES;
+        // Copy through a big endian long view instead of readLong() per element
+        bb.nioBuffer(bb.readerIndex(), byteLength).order(ByteOrder.BIG_ENDIAN).asLongBuffer().get(longs);
+        bb.skipBytes(byteLength);
         return longs;
     }
 
@@ -173,9 +171,9 @@ public class ByteArrayUtil {
 
     public static void writeLongArray(long[] longs, ByteArrayDataOutput bb) {
         writeVarInt(longs.length, bb);
-        for (long aLong : longs) {
-            bb.writeLong(aLong);
-        }
+        ByteBuffer buffer = ByteBuffer.allocate(longs.length * Long.BYTES).order(ByteOrder.BIG_ENDIAN);
+        buffer.asLongBuffer().put(longs);
+        bb.write(buffer.array());
     }
 
     public static void writeStringArray(String[] strings, ByteArrayDataOutput bb) {